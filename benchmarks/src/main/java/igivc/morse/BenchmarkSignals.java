@@ -0,0 +1,37 @@
+package igivc.morse;
+
+import java.util.Random;
+
+/**
+ * Deterministic test signals for the benchmarks.
+ */
+final class BenchmarkSignals {
+    private BenchmarkSignals() {
+    }
+
+    /**
+     * @return a tone keyed on and off every 480 samples (a dot at 20 WPM and 8000 Hz) with some noise, -1..1
+     */
+    static double[] keyedTone(int length, int sampleRate, double freq) {
+        final Random random = new Random(1);
+        final double[] signal = new double[length];
+        for (int i = 0; i < length; i++) {
+            final boolean keyDown = (i / 480) % 2 == 0;
+            signal[i] = (keyDown ? 0.5 * Math.sin(2 * Math.PI * freq * i / sampleRate) : 0) + 0.05 * random.nextGaussian();
+        }
+        return signal;
+    }
+
+    /**
+     * @return random words of letters and digits
+     */
+    static String text(int length) {
+        final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789     ";
+        final Random random = new Random(1);
+        final StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package igivc.morse;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signal level classification of the smoothed envelope, ns/sample: the sliding percentiles
+ * and the run-length output to the debouncer and the speed tracker.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClassifierBenchmark {
+    static final int BLOCK = 1024;
+    private double[] envelope;
+    private SignalLevelClassifier classifier;
+    private SignalLevelClassifier chain;
+    private SlidingPercentile percentile;
+    private long runs;
+
+    @Setup
+    public void setup() {
+        envelope = BenchmarkSignals.keyedTone(BLOCK, 8000, 800);
+        for (int i = 0; i < BLOCK; i++) {
+            envelope[i] = Math.abs(envelope[i]);
+        }
+        classifier = new SignalLevelClassifier((level, duration) -> runs++, 8000);
+        final DotDurationMeter meter = new DotDurationMeter(new MorseDecoder(text -> runs++), 8000);
+        chain = new SignalLevelClassifier(new Debouncer(meter, 8000), 8000);
+        percentile = new SlidingPercentile(800, 0.9);
+        while (!percentile.isFull()) {
+            percentile.add(envelope[percentile.getSize()]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public long signalLevelClassifier() {
+        classifier.processBuffer(envelope, 0, BLOCK);
+        return runs;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public long classifierToDecoder() {
+        chain.processBuffer(envelope, 0, BLOCK);
+        return runs;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public double slidingPercentile() {
+        double y = 0;
+        for (int i = 0; i < BLOCK; i++) {
+            percentile.add(envelope[i]);
+            y += percentile.get();
+        }
+        return y;
+    }
+}
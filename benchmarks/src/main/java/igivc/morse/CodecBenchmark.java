@@ -0,0 +1,57 @@
+package igivc.morse;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text to Morse conversion, ns/char of the text.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+    static final int CHARS = 10000;
+    private TextToMorseProcessor processor;
+    private MorseCodec codec;
+    private String text, morse;
+    private StringBuilder out;
+
+    @Setup
+    public void setup() {
+        processor = new TextToMorseProcessor();
+        codec = processor.getCodec();
+        text = BenchmarkSignals.text(CHARS);
+        morse = processor.textToMorse(text);
+        out = new StringBuilder(morse.length());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHARS)
+    public String textToMorse() {
+        return processor.textToMorse(text);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHARS)
+    public int encodeToAppendable() throws Exception {
+        out.setLength(0);
+        codec.encode(text, out);
+        return out.length();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHARS)
+    public String morseToText() {
+        return processor.morseToText(morse);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHARS)
+    public KeyingTimeline textToTimeline() {
+        return processor.textToTimeline(text);
+    }
+}
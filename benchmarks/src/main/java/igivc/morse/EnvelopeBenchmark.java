@@ -0,0 +1,58 @@
+package igivc.morse;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envelope detectors and the smoother, ns/sample: the block Hilbert envelope of the receiver window
+ * and the streaming quadrature envelope.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EnvelopeBenchmark {
+    static final int WINDOW = 2048; // the receiver window at 8000 Hz
+    private double[] signal, src, dst, buffer;
+    private HilbertEnvelope hilbert;
+    private QuadratureEnvelope quadrature;
+    private AttackReleaseSmoother smoother;
+
+    @Setup
+    public void setup() {
+        signal = BenchmarkSignals.keyedTone(WINDOW, 8000, 800);
+        src = new double[WINDOW];
+        dst = new double[WINDOW];
+        buffer = new double[WINDOW];
+        hilbert = new HilbertEnvelope(src, dst);
+        quadrature = new QuadratureEnvelope(8000, 800);
+        smoother = new AttackReleaseSmoother(8000);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public double hilbertEnvelope() {
+        System.arraycopy(signal, 0, src, 0, WINDOW);
+        hilbert.envelope();
+        return dst[WINDOW / 2];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public double quadratureEnvelope() {
+        System.arraycopy(signal, 0, buffer, 0, WINDOW);
+        quadrature.processBuffer(buffer, 0, WINDOW);
+        return buffer[WINDOW - 1];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public double attackReleaseSmoother() {
+        System.arraycopy(signal, 0, buffer, 0, WINDOW);
+        smoother.processBuffer(buffer, 0, WINDOW);
+        return buffer[WINDOW - 1];
+    }
+}
@@ -0,0 +1,72 @@
+package igivc.morse;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FFT of the sizes used by the envelope detector, every invocation transforms {@link #SAMPLES} samples
+ * by FFTs of the size, so the score is ns/sample for any size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FftBenchmark {
+    static final int SAMPLES = 16384;
+
+    @Param({"256", "1024", "4096", "16384"})
+    int size;
+
+    private double[] signal, real, imag;
+    private FftPlan plan;
+    private RealFftPlan realPlan;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(1);
+        signal = new double[size];
+        for (int i = 0; i < size; i++) {
+            signal[i] = random.nextGaussian();
+        }
+        real = new double[size];
+        imag = new double[size];
+        plan = FftPlan.of(size);
+        realPlan = RealFftPlan.of(size);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double fft() {
+        for (int i = 0; i < SAMPLES / size; i++) {
+            System.arraycopy(signal, 0, real, 0, size);
+            Arrays.fill(imag, 0);
+            FFT.fft(real, imag, false);
+        }
+        return real[1];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double fftPlan() {
+        for (int i = 0; i < SAMPLES / size; i++) {
+            System.arraycopy(signal, 0, real, 0, size);
+            Arrays.fill(imag, 0);
+            plan.forward(real, imag);
+        }
+        return real[1];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double realFftPlan() {
+        for (int i = 0; i < SAMPLES / size; i++) {
+            realPlan.forward(signal, real, imag);
+        }
+        return real[1];
+    }
+}
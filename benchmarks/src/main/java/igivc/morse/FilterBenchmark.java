@@ -0,0 +1,88 @@
+package igivc.morse;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Band pass filter, Goertzel detectors and the polyphase filter bank, ns/sample.
+ * The filter bank gives all 257 channels, a band pass filter gives one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FilterBenchmark {
+    static final int BLOCK = 1024; // the receiver block
+    private double[] signal, buffer;
+    private BandPassFilter filter;
+    private Goertzel goertzel;
+    private SlidingGoertzel slidingGoertzel;
+    private GoertzelBank bank;
+    private PolyphaseChannelizer channelizer;
+    private double sink;
+
+    @Setup
+    public void setup() {
+        signal = BenchmarkSignals.keyedTone(BLOCK, 8000, 800);
+        buffer = new double[BLOCK];
+        filter = new BandPassFilter(8000, 800, 15);
+        // 80 ms window at 8000 Hz, a result every 40 samples as in DecoderTest
+        goertzel = new Goertzel(64, 640, 40, true, g -> sink += g.getMagnitude());
+        slidingGoertzel = new SlidingGoertzel(64, 640, true);
+        bank = new GoertzelBank(GoertzelBank.bins(8000, 640, 700, 750, 800, 850, 900), 640, 40, true,
+                b -> sink += b.getMagnitudes()[2]);
+        // 15.6 Hz channels at 500 frames per second as in Skimmer
+        channelizer = new PolyphaseChannelizer(8000, 512, 16, 50, c -> sink += c.getMagnitude(51));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public double bandPassProcessSample() {
+        double y = 0;
+        for (int i = 0; i < BLOCK; i++) {
+            y += filter.processSample(signal[i]);
+        }
+        return y;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public double bandPassProcessBuffer() {
+        System.arraycopy(signal, 0, buffer, 0, BLOCK);
+        filter.processBuffer(buffer, 0, BLOCK);
+        return buffer[BLOCK - 1];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public double goertzel() {
+        for (int i = 0; i < BLOCK; i++) {
+            goertzel.process(signal[i]);
+        }
+        return sink;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public double slidingGoertzel() {
+        slidingGoertzel.process(signal, buffer);
+        return buffer[BLOCK - 1];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public double goertzelBank() {
+        bank.process(signal);
+        return sink;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public double polyphaseChannelizer() {
+        channelizer.process(signal, 0, BLOCK);
+        return sink;
+    }
+}
@@ -0,0 +1,55 @@
+package igivc.morse;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ring buffer operations of the Hilbert receive path, ns/sample: a block is written,
+ * the window is copied out and the shift is discarded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RingBufferBenchmark {
+    static final int BLOCK = 1024;
+    static final int WINDOW = 2048;
+    private RingBuffer ringBuffer;
+    private double[] block, window;
+
+    @Setup
+    public void setup() {
+        ringBuffer = new RingBuffer(16000);
+        block = BenchmarkSignals.keyedTone(BLOCK, 8000, 800);
+        window = new double[WINDOW];
+        ringBuffer.write(new double[WINDOW]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public double writeBlock() {
+        ringBuffer.write(block, 0, BLOCK);
+        ringBuffer.discard(BLOCK);
+        return ringBuffer.getSize();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public double writeSamples() {
+        for (int i = 0; i < BLOCK; i++) {
+            ringBuffer.write(block[i]);
+        }
+        ringBuffer.discard(BLOCK);
+        return ringBuffer.getSize();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public double copyTo() {
+        ringBuffer.copyTo(window, 0, WINDOW);
+        return window[WINDOW - 1];
+    }
+}
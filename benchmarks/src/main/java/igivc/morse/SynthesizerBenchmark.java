@@ -0,0 +1,66 @@
+package igivc.morse;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ShortBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transmitter rendering, ns/sample: the synthesizer blocks and the whole transmit path to a null sink.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SynthesizerBenchmark {
+    static final int SAMPLE_RATE = 22050;
+    // 43 units of PARIS and the trailing gap, 60 ms each (20 WPM)
+    static final int SAMPLES = 44 * 1323;
+    private KeyingTimeline timeline;
+    private byte[] bytes;
+    private ShortBuffer shorts;
+    private Transmitter transmitter;
+
+    @Setup
+    public void setup() {
+        timeline = new TextToMorseProcessor().textToTimeline("PARIS");
+        bytes = new byte[4096];
+        shorts = ShortBuffer.allocate(4096);
+        transmitter = new Transmitter(new NullSink(SAMPLE_RATE));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        transmitter.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int render8Bit() {
+        final MorseSynthesizer synthesizer = new MorseSynthesizer(timeline, SAMPLE_RATE, 800, 60);
+        int total = 0, n;
+        while ((n = synthesizer.read(bytes, 0, bytes.length)) > 0) {
+            total += n;
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int render16Bit() {
+        final MorseSynthesizer synthesizer = new MorseSynthesizer(timeline, SAMPLE_RATE, 800, 60, 5);
+        int total = 0, n;
+        while ((n = synthesizer.read(shorts.clear())) > 0) {
+            total += n;
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void transmitToNullSink() {
+        transmitter.transmit(timeline).join();
+    }
+}
@@ -1,13 +1,11 @@
 package igivc.morse;
 
-import java.util.function.Function;
-
 /**
  * One-pole IIR low-pass (EMA, Exponential Moving Average) filters:
  * y[n]=y[n−1]+alphaAttack(x[n]−y[n−1]) if x>y
  * y[n]=y[n−1]+alphaRelease(x[n]−y[n−1]) if x<=y
  */
-class AttackReleaseSmoother implements Function<Double, Double> {
+class AttackReleaseSmoother implements SampleProcessor {
     private final double alphaAttack;
     private final double alphaRelease;
     private double y = 0.0;
@@ -30,8 +28,8 @@ class AttackReleaseSmoother implements Function<Double, Double> {
         initialized = false;
     }
 
-    @Override
-    public Double apply(Double x) {
+    /** Process one sample */
+    public double processSample(double x) {
         if (!initialized) {
             y = x;
             initialized = true;
@@ -41,4 +39,24 @@ class AttackReleaseSmoother implements Function<Double, Double> {
         y += a * (x - y);
         return y;
     }
+
+    /** Process {@code length} samples in-place starting from {@code offset} */
+    @Override
+    public void processBuffer(double[] buffer, int offset, int length) {
+        if (length <= 0) return;
+        final double alphaAttack = this.alphaAttack, alphaRelease = this.alphaRelease;
+        int i = offset;
+        final int end = offset + length;
+        if (!initialized) {
+            y = buffer[i++];
+            initialized = true;
+        }
+        double y = this.y;
+        for (; i < end; i++) {
+            final double x = buffer[i];
+            y += ((x > y) ? alphaAttack : alphaRelease) * (x - y);
+            buffer[i] = y;
+        }
+        this.y = y;
+    }
 }
@@ -0,0 +1,38 @@
+package igivc.morse;
+
+import java.io.IOException;
+
+/**
+ * Destination of mono signed 16-bit audio samples, for example a sound card or a file.
+ */
+interface AudioSink extends AutoCloseable {
+    /**
+     * @return sample rate, Hz
+     */
+    int getSampleRate();
+
+    /**
+     * Writes the samples, blocks while a real-time sink is busy.
+     */
+    void write(short[] samples, int offset, int length) throws IOException;
+
+    /**
+     * Waits until the written samples are played or stored
+     */
+    default void flush() throws IOException {
+    }
+
+    /**
+     * @return number of samples written
+     */
+    long getSamplesWritten();
+
+    /**
+     * @return true if the sink consumes samples in real time (sound card),
+     * false if it can be written as fast as possible (file, pipe)
+     */
+    boolean isRealTime();
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,35 @@
+package igivc.morse;
+
+import java.io.IOException;
+
+/**
+ * Source of mono audio samples scaled to -1..1, for example a sound card or a recorded file.
+ */
+interface AudioSource extends AutoCloseable {
+    /**
+     * @return sample rate, Hz
+     */
+    int getSampleRate();
+
+    /**
+     * Starts capturing/reading, must be called before {@link #read(double[])}.
+     */
+    void start() throws IOException;
+
+    /**
+     * Reads the next samples, blocks until at least one sample is available.
+     *
+     * @param buffer buffer to fill
+     * @return number of samples read, or -1 when the source is finished
+     */
+    int read(double[] buffer) throws IOException;
+
+    /**
+     * @return true if the source delivers samples in real time (sound card),
+     * false if it can be read as fast as possible (file, pipe)
+     */
+    boolean isRealTime();
+
+    @Override
+    void close() throws IOException;
+}
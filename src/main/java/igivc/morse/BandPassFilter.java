@@ -38,7 +38,7 @@ package igivc.morse;
  *
  * BandwidthFreq = Fc/Q, (at -3db level)
  */
-class BandPassFilter {
+class BandPassFilter implements SampleProcessor {
     private double b0, b1, b2, a1, a2;
     private double x1 = 0, x2 = 0;   // previous inputs
     private double y1 = 0, y2 = 0;   // previous outputs
@@ -94,8 +94,9 @@ class BandPassFilter {
         return y0;
     }
 
-    /** Process samples in-place */
-    public void processBuffer(double[] buffer) {
+    /** Process {@code length} samples in-place starting from {@code offset} */
+    @Override
+    public void processBuffer(double[] buffer, int offset, int length) {
         // локальные копии коэффициентов
         final double b0 = this.b0, b1 = this.b1, b2 = this.b2;
         final double a1 = this.a1, a2 = this.a2;
@@ -104,7 +105,8 @@ class BandPassFilter {
         double x1 = this.x1, x2 = this.x2;
         double y1 = this.y1, y2 = this.y2;
 
-        for (int i = 0; i < buffer.length; i++) {
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
             double x0 = buffer[i];
 
             double y0 = b0 * x0 + b1 * x1 + b2 * x2
@@ -2,23 +2,26 @@ package igivc.morse;
 
 import sun.misc.Signal;
 
-import java.util.function.Consumer;
-
-class Debouncer implements Consumer<SignalLevel> {
+class Debouncer implements SignalRunConsumer {
     private final SignalState[] savedSignalStates = new SignalState[2];
     private final SignalState signalState = new SignalState();
-    private final Consumer<SignalState> dotDurationMeter;
+    private final SignalRunConsumer dotDurationMeter;
     private final int sampleRate;
     private int savedSignalStatesIndex = -1;
     private static final double minDotDuration = 0.02; // seconds
     private static final double flushDetectionBuffers = 1.5; // flush buffers when silence duration is more than ... seconds
 
-    public Debouncer(Consumer<SignalState> dotDurationMeter, int sampleRate) {
+    public Debouncer(SignalRunConsumer dotDurationMeter, int sampleRate) {
         this.dotDurationMeter = dotDurationMeter;
         this.sampleRate = sampleRate;
     }
 
-    public void accept(SignalLevel signalLevel) {
+    /**
+     * Accepts a run of samples of the same level, the same as {@code durationInSamples} calls of per-sample debouncing.
+     */
+    @Override
+    public void acceptRun(SignalLevel signalLevel, int durationInSamples) {
+        if (durationInSamples <= 0) return;
         if (signalState.signalLevel != signalLevel) { // signal state changed LOW <--> HIGH
             // debouncing
             if (signalState.durationInSamples / (double) sampleRate < minDotDuration) { // too short?
@@ -39,18 +42,49 @@ class Debouncer implements Consumer<SignalLevel> {
                 savedSignalStates[0] = savedSignalStates[1]; // shift the latest state to the previous position
                 savedSignalStates[1] = null;
                 savedSignalStatesIndex = 0;
-                dotDurationMeter.accept(ss);
+                accept(ss);
             }
 
             signalState.durationInSamples = 0;
             signalState.signalLevel = signalLevel;
-        } else if (signalState.durationInSamples > flushDetectionBuffers * sampleRate &&
+        }
+        signalState.durationInSamples += durationInSamples;
+        // the per-sample check "duration > flushDetectionBuffers" is done before every increment but the first one
+        if (signalState.durationInSamples - 1 > flushDetectionBuffers * sampleRate &&
                 savedSignalStatesIndex > -1) {
-            dotDurationMeter.accept(savedSignalStates[0]);
-            dotDurationMeter.accept(signalState);
+            accept(savedSignalStates[0]);
+            accept(signalState);
             savedSignalStates[0] = null;
             savedSignalStatesIndex = -1;
         }
-        signalState.durationInSamples++;
+    }
+
+    /**
+     * Passes the saved states and the current tone to the next stage, for example at the end of the audio.
+     * A tone shorter than the minimal dot is dropped, the current silence is not needed to end the character.
+     * A tone split by a glitch shorter than the minimal dot is passed as one element.
+     */
+    void flush() {
+        if (savedSignalStatesIndex > -1 && savedSignalStates[0].signalLevel == signalState.signalLevel) {
+            if (signalState.signalLevel == SignalLevel.High) {
+                savedSignalStates[0].durationInSamples += signalState.durationInSamples;
+            }
+            accept(savedSignalStates[0]);
+        } else {
+            if (savedSignalStatesIndex > -1) {
+                accept(savedSignalStates[0]);
+            }
+            if (signalState.signalLevel == SignalLevel.High &&
+                    signalState.durationInSamples / (double) sampleRate >= minDotDuration) {
+                accept(signalState);
+            }
+        }
+        savedSignalStates[0] = savedSignalStates[1] = null;
+        savedSignalStatesIndex = -1;
+        signalState.durationInSamples = 0;
+    }
+
+    private void accept(SignalState ss) {
+        dotDurationMeter.acceptRun(ss.signalLevel, ss.durationInSamples);
     }
 }
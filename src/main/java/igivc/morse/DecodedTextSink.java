@@ -0,0 +1,151 @@
+package igivc.morse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Batches the decoded text and writes it to the outputs from a background thread,
+ * so the decoder does not wait for the console or the disk.
+ * <p>
+ * A batch is written when it reaches {@code maxBatchChars} or {@code maxDelayMillis} after its first character,
+ * the outputs are flushed after every batch. The text is passed to the outputs in the order it is accepted.
+ * If the background thread is interrupted, the text is written synchronously by {@link #accept}.
+ */
+class DecodedTextSink implements Consumer<CharSequence>, AutoCloseable {
+    private static final Logger logger = Logger.getLogger(DecodedTextSink.class.getSimpleName());
+    private final List<TextOutput> outputs;
+    private final long maxDelayMillis;
+    private final int maxBatchChars;
+    private final StringBuilder pending = new StringBuilder(); // guarded by itself
+    private final Thread flusherThread;
+    private long firstPendingMillis; // when the first character of the batch was accepted
+    private boolean closed = false;
+    private boolean flusherStopped = false; // the flusher was interrupted, the text is written by accept()
+
+    /**
+     * @param maxDelayMillis the longest time the text waits for the batch
+     * @param maxBatchChars  the batch is written when it is this long
+     * @param outputs        the outputs, they are closed by {@link #close()}
+     */
+    DecodedTextSink(long maxDelayMillis, int maxBatchChars, TextOutput... outputs) {
+        if (maxDelayMillis <= 0) throw new IllegalArgumentException("maxDelayMillis");
+        if (maxBatchChars <= 0) throw new IllegalArgumentException("maxBatchChars");
+        this.outputs = List.of(outputs);
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxBatchChars = maxBatchChars;
+        flusherThread = new Thread(this::flushBatches, "DecodedTextSink");
+        flusherThread.setDaemon(true);
+        flusherThread.start();
+    }
+
+    /**
+     * Batches with 100 ms delay and 4096 characters
+     */
+    DecodedTextSink(TextOutput... outputs) {
+        this(100, 4096, outputs);
+    }
+
+    /**
+     * Accepts the decoded text, the sequence is copied and can be reused by the caller
+     *
+     * @throws IllegalStateException if the sink is closed by {@link #close()}
+     */
+    @Override
+    public void accept(CharSequence text) {
+        synchronized (pending) {
+            if (closed) throw new IllegalStateException("Sink is closed");
+            if (flusherStopped) {
+                // under the lock, so the concurrent callers keep the order
+                pending.append(text);
+                write(pending.toString());
+                pending.setLength(0);
+                return;
+            }
+            if (pending.isEmpty()) {
+                firstPendingMillis = System.currentTimeMillis();
+            }
+            pending.append(text);
+            if (pending.length() >= maxBatchChars) {
+                pending.notify();
+            }
+        }
+    }
+
+    private void flushBatches() {
+        while (true) {
+            final String batch;
+            final boolean finished;
+            synchronized (pending) {
+                try {
+                    while (!closed) {
+                        if (pending.length() >= maxBatchChars) break;
+                        final long wait = pending.isEmpty() ? maxDelayMillis
+                                : firstPendingMillis + maxDelayMillis - System.currentTimeMillis();
+                        if (wait <= 0) break;
+                        pending.wait(wait);
+                    }
+                } catch (InterruptedException e) {
+                    // the pending text is written with the next text or by close()
+                    flusherStopped = true;
+                    logger.log(Level.WARNING, "Flusher is interrupted, the decoded text is written synchronously");
+                    return;
+                }
+                batch = pending.toString();
+                pending.setLength(0);
+                finished = closed;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+            if (finished) break;
+        }
+    }
+
+    private void write(String batch) {
+        for (TextOutput output : outputs) {
+            try {
+                output.write(batch);
+                output.flush();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Can't write decoded text", e);
+            }
+        }
+    }
+
+    /**
+     * Writes the pending text and closes the outputs
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (pending) {
+            if (closed && !flusherThread.isAlive()) return;
+            closed = true;
+            pending.notify();
+        }
+        try {
+            flusherThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (pending) { // left by the interrupted flusher
+            if (flusherStopped && !pending.isEmpty()) {
+                write(pending.toString());
+                pending.setLength(0);
+            }
+        }
+        IOException error = null;
+        for (TextOutput output : outputs) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package igivc.morse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Diagnostic tap: records the samples of a processing stage (filter output, envelope, ...) to a binary file
+ * without slowing the stage down.
+ * <p>
+ * The stage copies the samples to a lock-free {@link SampleBlockQueue}, a background thread drains it
+ * and writes 64 KB blocks. If the disk is too slow the newest blocks are dropped, the stage is never blocked.
+ * The file is the magic "MDT1", the sample rate (int, little-endian) and float32 little-endian samples,
+ * see {@link DiagnosticTapConverter} for the conversion to CSV.
+ * <p>
+ * A disabled tap ignores the samples, the taps are off by default.
+ */
+class DiagnosticTap implements AutoCloseable {
+    static final int MAGIC = 0x3154444D; // "MDT1" little-endian
+    static final int HEADER_LENGTH = 8;
+    static final String EXTENSION = ".tap";
+    private static final int blockSize = 4096; // samples
+    private static final int queueCapacity = 64; // blocks
+    private static final DiagnosticTap disabled = new DiagnosticTap();
+    private static final Logger logger = Logger.getLogger(DiagnosticTap.class.getSimpleName());
+    private final SampleBlockQueue queue;
+    private final FileChannel channel;
+    private final Thread writerThread;
+    private double[] block; // the queue block being filled
+    private int blockLength = 0;
+    private volatile IOException error;
+
+    private DiagnosticTap() {
+        queue = null;
+        channel = null;
+        writerThread = null;
+    }
+
+    private DiagnosticTap(Path path, int sampleRate) throws IOException {
+        queue = new SampleBlockQueue(queueCapacity, blockSize, SampleBlockQueue.OverrunPolicy.DropNewest);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(sampleRate).flip();
+        channel.write(header);
+        block = queue.beginWrite();
+        writerThread = new Thread(this::writeBlocks, "DiagnosticTap " + path.getFileName());
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Opens the tap file {@code <directory>/<name>.tap}
+     *
+     * @param directory directory for the tap files, null to get a disabled tap
+     * @return the tap, disabled if the directory is null
+     */
+    static DiagnosticTap open(Path directory, String name, int sampleRate) throws IOException {
+        return directory == null ? disabled : new DiagnosticTap(directory.resolve(name + EXTENSION), sampleRate);
+    }
+
+    boolean isEnabled() {
+        return queue != null;
+    }
+
+    /**
+     * Records the samples, called by the stage thread only
+     */
+    void publish(double[] buffer, int offset, int length) {
+        if (queue == null) return;
+        while (length > 0) {
+            final int n = Math.min(length, block.length - blockLength);
+            System.arraycopy(buffer, offset, block, blockLength, n);
+            blockLength += n;
+            offset += n;
+            length -= n;
+            if (blockLength == block.length) {
+                queue.endWrite(blockLength);
+                block = queue.beginWrite();
+                blockLength = 0;
+            }
+        }
+    }
+
+    /**
+     * Records {@code length} equal samples, for example a run of a signal level, called by the stage thread only
+     */
+    void publishRun(double value, int length) {
+        if (queue == null) return;
+        while (length > 0) {
+            final int n = Math.min(length, block.length - blockLength);
+            Arrays.fill(block, blockLength, blockLength + n, value);
+            blockLength += n;
+            length -= n;
+            if (blockLength == block.length) {
+                queue.endWrite(blockLength);
+                block = queue.beginWrite();
+                blockLength = 0;
+            }
+        }
+    }
+
+    /**
+     * @return number of dropped blocks of samples
+     */
+    long getOverruns() {
+        return queue == null ? 0 : queue.getOverruns();
+    }
+
+    private void writeBlocks() {
+        final double[] samples = new double[blockSize];
+        final ByteBuffer bytes = ByteBuffer.allocateDirect(16 * blockSize).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            int n;
+            while ((n = queue.read(samples)) > 0) {
+                if (bytes.remaining() < 4 * n) {
+                    write(bytes);
+                }
+                for (int i = 0; i < n; i++) {
+                    bytes.putFloat((float) samples[i]);
+                }
+            }
+            write(bytes);
+        } catch (IOException e) {
+            error = e;
+            logger.log(Level.SEVERE, "Can't write diagnostic tap", e);
+        }
+    }
+
+    private void write(ByteBuffer bytes) throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    /**
+     * Writes the recorded samples and closes the file, called by the stage thread
+     */
+    @Override
+    public void close() throws IOException {
+        if (queue == null || queue.isClosed()) return;
+        queue.endWrite(blockLength);
+        blockLength = 0;
+        queue.close();
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+        if (getOverruns() > 0) {
+            logger.log(Level.WARNING, "Diagnostic tap dropped " + getOverruns() + " blocks");
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package igivc.morse;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Converts {@link DiagnosticTap} files to CSV: one sample per line scaled to 16-bit integers,
+ * the format of the former smoothed.csv.
+ */
+public class DiagnosticTapConverter {
+
+    /**
+     * Converts the tap stream to CSV
+     *
+     * @return number of samples
+     */
+    static long toCsv(InputStream in, Writer out) throws IOException {
+        final DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        if (Integer.reverseBytes(data.readInt()) != DiagnosticTap.MAGIC) {
+            throw new IOException("Not a diagnostic tap");
+        }
+        data.readInt(); // sample rate
+        long n = 0;
+        while (true) {
+            final int bits;
+            try {
+                bits = Integer.reverseBytes(data.readInt());
+            } catch (EOFException e) {
+                break;
+            }
+            out.write(Integer.toString((int) (Float.intBitsToFloat(bits) * 32768)));
+            out.write('\n');
+            n++;
+        }
+        out.flush();
+        return n;
+    }
+
+    /**
+     * Converts the tap file to a CSV file with the same name, for example smoothed.tap to smoothed.csv
+     */
+    static Path toCsv(Path tapFile) throws IOException {
+        final String name = tapFile.getFileName().toString();
+        final String base = name.endsWith(DiagnosticTap.EXTENSION)
+                ? name.substring(0, name.length() - DiagnosticTap.EXTENSION.length()) : name;
+        final Path csvFile = tapFile.resolveSibling(base + ".csv");
+        try (InputStream in = Files.newInputStream(tapFile);
+             BufferedWriter out = Files.newBufferedWriter(csvFile)) {
+            toCsv(in, out);
+        }
+        return csvFile;
+    }
+
+    /**
+     * @param args tap files to convert
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: DiagnosticTapConverter file.tap...");
+            return;
+        }
+        for (String arg : args) {
+            System.out.println(toCsv(Path.of(arg)));
+        }
+    }
+}
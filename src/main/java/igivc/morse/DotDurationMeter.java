@@ -1,54 +1,73 @@
 package igivc.morse;
 
-import java.util.Comparator;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.function.BiConsumer;
-import java.util.function.Consumer;
 
-class DotDurationMeter implements Consumer<SignalState> {
-    private final List<SignalState> statesForDetection = new LinkedList<>();
+/**
+ * Measures the dot duration with {@link SpeedTracker} and passes the elements with the current estimate
+ * to the dash/dot classifier. Elements received before the estimate is confident enough are kept
+ * and replayed once the speed is locked.
+ */
+class DotDurationMeter implements SignalRunConsumer {
+    private static final int detectorQueueLength = 32; // elements kept until the speed is locked
+    private static final double lockConfidence = 0.5;
     private final BiConsumer<SignalState, Integer> dashDotClassifier;
+    private final SpeedTracker speedTracker;
+    private final SignalState signalState = new SignalState(); // reused, the classifier does not keep it
+    private final boolean[] queuedHigh = new boolean[detectorQueueLength];
+    private final int[] queuedDurations = new int[detectorQueueLength];
+    private int queueHead = 0, queueSize = 0;
     private int dotDurationInSamples;
 
-    public DotDurationMeter(BiConsumer<SignalState, Integer> dashDotClassifier) {
+    public DotDurationMeter(BiConsumer<SignalState, Integer> dashDotClassifier, int sampleRate) {
         this.dashDotClassifier = dashDotClassifier;
+        this.speedTracker = new SpeedTracker(sampleRate);
     }
 
     @Override
-    public void accept(SignalState signalState) {
-        final int detectorQueueLength = 20;
-        statesForDetection.addLast(signalState);
-        if (statesForDetection.size() >= detectorQueueLength) {
-            var sortedHighStates = statesForDetection
-                    .stream()
-                    .filter(s -> s.signalLevel == SignalLevel.High)
-                    .sorted(Comparator.comparing(state -> state.durationInSamples))
-                    .map(state -> state.durationInSamples)
-                    .toArray();
-            int dashIndex = sortedHighStates.length - 2;
-            int dotIndex = 1;
-            int dashDuration = (int) sortedHighStates[dashIndex];
-            int dotDuration = (int) sortedHighStates[dotIndex];
-            float dashDotRatio = (float) dashDuration / dotDuration;
-
-            if (dashDotRatio > 2.5 && dashDotRatio < 3.5) { // found dashes and dots?
-                boolean firstUpdate = dotDurationInSamples == 0;
-                dotDurationInSamples = dotDuration;
-                if (firstUpdate) {
-                    for (var ss : statesForDetection) {
-                        dashDotClassifier.accept(ss, dotDurationInSamples);
-                    }
-                }
-                while (statesForDetection.size() >= detectorQueueLength) {
-                    statesForDetection.removeFirst();
-                }
-                if (firstUpdate) return;
+    public void acceptRun(SignalLevel signalLevel, int durationInSamples) {
+        if (signalLevel == SignalLevel.High) {
+            speedTracker.accept(durationInSamples);
+        }
+        if (dotDurationInSamples == 0) {
+            enqueue(signalLevel == SignalLevel.High, durationInSamples);
+            if (speedTracker.getConfidence() < lockConfidence) {
+                return;
+            }
+            dotDurationInSamples = (int) Math.round(speedTracker.getDotDurationInSamples());
+            for (int i = 0; i < queueSize; i++) {
+                final int index = (queueHead + i) % detectorQueueLength;
+                classify(queuedHigh[index] ? SignalLevel.High : SignalLevel.Low, queuedDurations[index]);
             }
+            queueHead = queueSize = 0;
+            return;
         }
+        if (speedTracker.getConfidence() >= lockConfidence) {
+            dotDurationInSamples = (int) Math.round(speedTracker.getDotDurationInSamples());
+        }
+        classify(signalLevel, durationInSamples);
+    }
 
-        if (dotDurationInSamples > 0) {
-            dashDotClassifier.accept(signalState, dotDurationInSamples);
+    /**
+     * @return the speed tracker with the current estimate and its confidence
+     */
+    SpeedTracker getSpeedTracker() {
+        return speedTracker;
+    }
+
+    private void enqueue(boolean high, int durationInSamples) {
+        if (queueSize == detectorQueueLength) { // drop the oldest element
+            queueHead = (queueHead + 1) % detectorQueueLength;
+            queueSize--;
         }
+        final int index = (queueHead + queueSize) % detectorQueueLength;
+        queuedHigh[index] = high;
+        queuedDurations[index] = durationInSamples;
+        queueSize++;
+    }
+
+    private void classify(SignalLevel signalLevel, int durationInSamples) {
+        signalState.signalLevel = signalLevel;
+        signalState.durationInSamples = durationInSamples;
+        dashDotClassifier.accept(signalState, dotDurationInSamples);
     }
 }
@@ -0,0 +1,134 @@
+package igivc.morse;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Precomputed complex FFT (Cooley–Tukey radix-2) of a fixed power-of-two size.
+ * <p>
+ * The bit-reversal permutation and the twiddle factors are calculated once,
+ * every twiddle is taken directly from Math.cos/Math.sin (no recursive multiplication,
+ * so the error does not grow with the stage length).
+ * A plan is immutable and can be shared across threads, transforms work in-place and allocate nothing.
+ */
+final class FftPlan {
+    private static final AtomicReferenceArray<FftPlan> plans = new AtomicReferenceArray<>(31); // by log2(n)
+    private final int n;
+    private final int[] swaps; // pairs of indexes to swap for the bit-reversal permutation
+    private final double[] cos; // cos(2*pi*k/n), k < n/2
+    private final double[] sin; // sin(2*pi*k/n), k < n/2
+
+    private FftPlan(int n) {
+        this.n = n;
+        final int bits = Integer.numberOfTrailingZeros(n);
+        int nSwaps = 0;
+        int[] pairs = new int[n];
+        for (int i = 0; i < n; i++) {
+            int j = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+            if (i < j) {
+                pairs[nSwaps++] = i;
+                pairs[nSwaps++] = j;
+            }
+        }
+        swaps = Arrays.copyOf(pairs, nSwaps);
+        cos = new double[n / 2];
+        sin = new double[n / 2];
+        for (int k = 0; k < n / 2; k++) {
+            final double ang = 2 * Math.PI * k / n;
+            cos[k] = Math.cos(ang);
+            sin[k] = Math.sin(ang);
+        }
+    }
+
+    /**
+     * @param n transform size, must be a power of two
+     * @return cached plan for the size
+     */
+    static FftPlan of(int n) {
+        if (n <= 0 || Integer.bitCount(n) != 1) {
+            throw new IllegalArgumentException("Length must be power of 2");
+        }
+        final int index = Integer.numberOfTrailingZeros(n);
+        FftPlan plan = plans.get(index);
+        if (plan == null) {
+            // concurrent callers may build the same plan twice, the first one wins
+            plans.compareAndSet(index, null, new FftPlan(n));
+            plan = plans.get(index);
+        }
+        return plan;
+    }
+
+    int size() {
+        return n;
+    }
+
+    /**
+     * Forward transform in-place: the signal at the input, the spectrum at the output.
+     * Only the first n elements of longer arrays are used.
+     */
+    void forward(double[] real, double[] imag) {
+        transform(real, imag, -1);
+    }
+
+    /**
+     * Inverse transform in-place (divided by N): the spectrum at the input, the signal at the output.
+     */
+    void inverse(double[] real, double[] imag) {
+        transform(real, imag, 1);
+        final double scale = 1.0 / n;
+        for (int i = 0; i < n; i++) {
+            real[i] *= scale;
+            imag[i] *= scale;
+        }
+    }
+
+    private void transform(double[] real, double[] imag, int sign) {
+        if (real.length < n || imag.length < n) {
+            throw new IllegalArgumentException("Length must be at least " + n);
+        }
+        // bit-reversal permutation
+        for (int s = 0; s < swaps.length; s += 2) {
+            final int i = swaps[s];
+            final int j = swaps[s + 1];
+            double tr = real[i];
+            double ti = imag[i];
+            real[i] = real[j];
+            imag[i] = imag[j];
+            real[j] = tr;
+            imag[j] = ti;
+        }
+
+        // the first stage has the only twiddle 1
+        for (int i = 0; i + 1 < n; i += 2) {
+            double ur = real[i], ui = imag[i];
+            double vr = real[i + 1], vi = imag[i + 1];
+            real[i] = ur + vr;
+            imag[i] = ui + vi;
+            real[i + 1] = ur - vr;
+            imag[i + 1] = ui - vi;
+        }
+
+        for (int len = 4; len <= n; len <<= 1) {
+            final int half = len >>> 1;
+            final int step = n / len;
+            for (int i = 0; i < n; i += len) {
+                for (int k = 0, t = 0; k < half; k++, t += step) {
+                    final double wr = cos[t];
+                    final double wi = sign * sin[t];
+                    final int u = i + k;
+                    final int v = u + half;
+
+                    final double vr = real[v] * wr - imag[v] * wi;
+                    final double vi = real[v] * wi + imag[v] * wr;
+                    final double ur = real[u];
+                    final double ui = imag[u];
+
+                    real[u] = ur + vr;
+                    imag[u] = ui + vi;
+                    real[v] = ur - vr;
+                    imag[v] = ui - vi;
+                }
+            }
+        }
+    }
+}
@@ -3,6 +3,10 @@ package igivc.morse;
 import java.util.function.Consumer;
 
 class Goertzel {
+    /**
+     * 4-term Blackman-Harris window coefficients: w[i] = a0 - a1*cos(p) + a2*cos(2p) - a3*cos(3p), p = 2*pi*i/N
+     */
+    static final double[] BLACKMAN_HARRIS = {0.35875, 0.48829, 0.14128, 0.01168};
     private final int windowWidth, shift;
     private final Consumer<Goertzel> resultConsumer;
     private final double[] ringBuffer; // see https://www.baeldung.com/java-ring-buffer
@@ -23,7 +27,7 @@ class Goertzel {
         coeff = 2 * cosine;
         // prepare window, see https://en.wikipedia.org/wiki/Window_function
         for (int i = 0; i < windowWidth; i++) {
-            windowFunction[i] = useBlackmanHarrisWindow ? blackmanHarris(i) : 1.0;
+            windowFunction[i] = useBlackmanHarrisWindow ? blackmanHarris(i, windowWidth) : 1.0;
         }
     }
 
@@ -67,8 +71,8 @@ class Goertzel {
         return signalPosition;
     }
 
-    private double blackmanHarris(int index) {
-        final double a0 = 0.35875, a1 = 0.48829, a2 = 0.14128, a3 = 0.01168;
+    static double blackmanHarris(int index, int windowWidth) {
+        final double a0 = BLACKMAN_HARRIS[0], a1 = BLACKMAN_HARRIS[1], a2 = BLACKMAN_HARRIS[2], a3 = BLACKMAN_HARRIS[3];
         final double p = 2.0 * Math.PI * index / windowWidth;
         return a0
                 - a1 * Math.cos(p)
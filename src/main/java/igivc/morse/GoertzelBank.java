@@ -0,0 +1,130 @@
+package igivc.morse;
+
+import java.util.function.Consumer;
+
+/**
+ * A bank of Goertzel filters sharing one sample buffer and one window table.
+ * Every window is passed once, all bins are updated in the inner loop over plain arrays,
+ * so adding a bin costs a few multiply-adds per sample and no extra buffers.
+ * Bin indexes may be fractional: k = frequency * windowWidth / sampleRate.
+ */
+class GoertzelBank {
+    private final int windowWidth, shift;
+    private final Consumer<GoertzelBank> resultConsumer;
+    private final double[] samples; // the window, the oldest sample first
+    private final double[] windowFunction;
+    private final double[] coeff;
+    private final double[] q1, q2;
+    private final double[] magnitudes;
+    private int size = 0;
+    private long signalPosition = 0;
+
+    /**
+     * @param k                       bin indexes, may be fractional
+     * @param windowWidth             window length in samples
+     * @param shift                   hop between windows in samples, 1..windowWidth
+     * @param useBlackmanHarrisWindow apply the Blackman-Harris window, otherwise the rectangular one
+     * @param resultConsumer          called for every window, see {@link #getMagnitudes()}
+     */
+    GoertzelBank(double[] k, int windowWidth, int shift, boolean useBlackmanHarrisWindow, Consumer<GoertzelBank> resultConsumer) {
+        if (k.length == 0) throw new IllegalArgumentException("no bins");
+        if (shift <= 0 || shift > windowWidth) throw new IllegalArgumentException("shift must be in 1..windowWidth");
+        this.resultConsumer = resultConsumer;
+        this.windowWidth = windowWidth;
+        this.shift = shift;
+        this.samples = new double[windowWidth];
+        this.windowFunction = new double[windowWidth];
+        for (int i = 0; i < windowWidth; i++) {
+            windowFunction[i] = useBlackmanHarrisWindow ? Goertzel.blackmanHarris(i, windowWidth) : 1.0;
+        }
+        this.coeff = new double[k.length];
+        for (int b = 0; b < k.length; b++) {
+            coeff[b] = 2 * Math.cos(2.0 * Math.PI * k[b] / windowWidth);
+        }
+        this.q1 = new double[k.length];
+        this.q2 = new double[k.length];
+        this.magnitudes = new double[k.length];
+    }
+
+    /**
+     * @return fractional bin indexes for the frequencies
+     */
+    static double[] bins(int sampleRate, int windowWidth, double... frequencies) {
+        double[] k = new double[frequencies.length];
+        for (int i = 0; i < frequencies.length; i++) {
+            k[i] = frequencies[i] * windowWidth / sampleRate;
+        }
+        return k;
+    }
+
+    void process(double sample) {
+        samples[size++] = sample;
+        if (size == windowWidth) {
+            processWindow();
+        }
+    }
+
+    void process(double[] buffer, int offset, int length) {
+        final int end = offset + length;
+        while (offset < end) {
+            int n = Math.min(end - offset, windowWidth - size);
+            System.arraycopy(buffer, offset, samples, size, n);
+            size += n;
+            offset += n;
+            if (size == windowWidth) {
+                processWindow();
+            }
+        }
+    }
+
+    void process(double[] buffer) {
+        process(buffer, 0, buffer.length);
+    }
+
+    private void processWindow() {
+        final int nBins = coeff.length;
+        final double[] coeff = this.coeff, q1 = this.q1, q2 = this.q2;
+        for (int b = 0; b < nBins; b++) {
+            q1[b] = 0;
+            q2[b] = 0;
+        }
+        for (int i = 0; i < windowWidth; i++) {
+            final double d = samples[i] * windowFunction[i];
+            for (int b = 0; b < nBins; b++) {
+                double q0 = coeff[b] * q1[b] - q2[b] + d;
+                q2[b] = q1[b];
+                q1[b] = q0;
+            }
+        }
+        for (int b = 0; b < nBins; b++) {
+            magnitudes[b] = Math.sqrt(q1[b] * q1[b] + q2[b] * q2[b] - q1[b] * q2[b] * coeff[b]);
+        }
+        signalPosition += shift;
+        // shift data and free `shift` elements
+        System.arraycopy(samples, shift, samples, 0, windowWidth - shift);
+        size -= shift;
+        resultConsumer.accept(this);
+    }
+
+    /**
+     * @return magnitudes of the latest window, one per bin; the array is reused for the next window
+     */
+    double[] getMagnitudes() {
+        return magnitudes;
+    }
+
+    double getMagnitude(int bin) {
+        return magnitudes[bin];
+    }
+
+    int getNumBins() {
+        return coeff.length;
+    }
+
+    /**
+     * @return position of the first sample after the latest window
+     */
+    long getSignalPosition() {
+        return signalPosition + windowWidth - shift;
+    }
+}
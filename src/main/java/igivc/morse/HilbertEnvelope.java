@@ -12,55 +12,48 @@ class HilbertEnvelope {
     private final double[] imag;
     private final double[] src;
     private final double[] dst;
-    private final double[] hilbertMultiplier;
+    private final double[] hilbert; // H(x), separate from dst so that src and dst may be the same array
+    private final RealFftPlan fftPlan;
 
     public HilbertEnvelope(double[] src, double[] dst) {
         if (src.length != dst.length) throw new IllegalArgumentException("src.length != dst.length");
         if (Integer.bitCount(src.length) != 1) throw new IllegalArgumentException("src length must be a power of 2");
+        if (src.length < 2) throw new IllegalArgumentException("src length must be at least 2");
         this.src = src;
         this.dst = dst;
-        this.real = new double[src.length];
-        this.imag = new double[src.length];
-        hilbertMultiplier = buildHilbertMultiplier(src.length);
+        // half spectrum X[0..n/2] of the real signal
+        this.real = new double[src.length / 2 + 1];
+        this.imag = new double[src.length / 2 + 1];
+        this.hilbert = new double[src.length];
+        fftPlan = RealFftPlan.of(src.length);
     }
 
     /**
      * Calculates the signal envelope using the formula: abs(hilbert(signal)).
+     * The analytic signal is x + j*H(x), its real part is the source signal itself,
+     * so only the Hilbert transform H(x) is calculated, by real-input transforms of half size.
      */
     public void envelope() {
         final int n = src.length;
-        // 1) copy to real part
-        System.arraycopy(src, 0, real, 0, n);
-        for (int i = 0; i < n; i++) imag[i] = 0.0;
-
-        // 2) FFT
-        FFT.fft(real, imag, false);
-
-        // 3) apply Hilbert multiplier
-        for (int i = 0; i < n; i++) {
-            real[i] *= hilbertMultiplier[i];
-            imag[i] *= hilbertMultiplier[i];
+        final int h = n / 2;
+        // 1) FFT of the real signal, half spectrum X[0..n/2]
+        fftPlan.forward(src, real, imag);
+
+        // 2) Hilbert multiplier: -j for 0 < k < n/2, 0 for k == 0 and k == n/2
+        real[0] = imag[0] = 0.0;
+        real[h] = imag[h] = 0.0;
+        for (int k = 1; k < h; k++) {
+            final double re = real[k];
+            real[k] = imag[k];
+            imag[k] = -re;
         }
 
-        // 4) IFFT
-        FFT.fft(real, imag, true);
+        // 3) IFFT -> H(x)
+        fftPlan.inverse(real, imag, hilbert);
 
-        // 5) abs -> dst
+        // 4) abs(x + j*H(x)) -> dst
         for (int i = 0; i < n; i++) {
-            dst[i] = Math.hypot(real[i], imag[i]);
-        }
-    }
-
-    private static double[] buildHilbertMultiplier(int n) {
-        double[] H = new double[n];
-        if ((n & 1) == 0) {
-            H[0] = 1.0;
-            H[n / 2] = 1.0;
-            for (int k = 1; k < n / 2; k++) H[k] = 2.0;
-        } else {
-            H[0] = 1.0;
-            for (int k = 1; k <= (n - 1) / 2; k++) H[k] = 2.0;
+            dst[i] = Math.hypot(src[i], hilbert[i]);
         }
-        return H;
     }
 }
@@ -0,0 +1,205 @@
+package igivc.morse;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Keying of an encoded Morse message: on/off runs measured in dot units, one byte per run.
+ * <p>
+ * The high bit of a run is the key state (1 - tone, 0 - silence), the low 7 bits are the length in units (1..127),
+ * longer runs are split to several runs of the same state. Standard timing is used: dot 1, dash 3,
+ * gaps between elements 1, between characters 3, between words 7 units. There is no trailing silence.
+ * <p>
+ * The timeline is immutable. The binary format is the magic "MKT1", the number of runs (int, big endian)
+ * and the runs.
+ */
+final class KeyingTimeline {
+    static final int dotUnits = 1, dashUnits = 3;
+    static final int elementGapUnits = 1, characterGapUnits = 3, wordGapUnits = 7;
+    private static final int MAGIC = 0x4D4B5431; // "MKT1"
+    private static final int KEY_DOWN = 0x80;
+    private static final int MAX_RUN = 0x7F;
+    private final byte[] runs;
+    private final int totalUnits;
+
+    private KeyingTimeline(byte[] runs) {
+        this.runs = runs;
+        int total = 0;
+        for (byte run : runs) {
+            total += run & MAX_RUN;
+        }
+        this.totalUnits = total;
+    }
+
+    /**
+     * Parses the Morse string of {@link TextToMorseProcessor#textToMorse}: '.' and '-' are elements,
+     * '|' ends a character, ' ' separates words
+     *
+     * @param morse Morse string, for example "....|..| |.-"
+     * @return the timeline
+     */
+    static KeyingTimeline fromMorse(CharSequence morse) {
+        final Builder builder = new Builder(morse.length() * 2);
+        for (int i = 0; i < morse.length(); i++) {
+            final char c = morse.charAt(i);
+            switch (c) {
+                case '.' -> builder.element(false);
+                case '-' -> builder.element(true);
+                case '|' -> builder.endCharacter();
+                case ' ' -> builder.endWord();
+                default -> throw new IllegalArgumentException("Unsupported symbol: " + c);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return number of runs
+     */
+    int size() {
+        return runs.length;
+    }
+
+    /**
+     * @return true if the key is down (tone) in the run
+     */
+    boolean isKeyDown(int run) {
+        return (runs[run] & KEY_DOWN) != 0;
+    }
+
+    /**
+     * @return length of the run in dot units
+     */
+    int units(int run) {
+        return runs[run] & MAX_RUN;
+    }
+
+    /**
+     * @return duration of the message in dot units
+     */
+    int totalUnits() {
+        return totalUnits;
+    }
+
+    /**
+     * Writes the timeline in the binary format, the stream is not closed
+     */
+    void write(OutputStream out) throws IOException {
+        final DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(runs.length);
+        data.write(runs);
+        data.flush();
+    }
+
+    /**
+     * Reads a timeline written by {@link #write}, the stream is not closed
+     */
+    static KeyingTimeline read(InputStream in) throws IOException {
+        final DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a keying timeline");
+        }
+        final int size = data.readInt();
+        if (size < 0) {
+            throw new IOException("Invalid number of runs: " + size);
+        }
+        final byte[] runs = new byte[size];
+        data.readFully(runs);
+        for (byte run : runs) {
+            if ((run & MAX_RUN) == 0) {
+                throw new IOException("Empty run");
+            }
+        }
+        return new KeyingTimeline(runs);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof KeyingTimeline other && Arrays.equals(runs, other.runs);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(runs);
+    }
+
+    @Override
+    public String toString() {
+        return "runs=" + runs.length + ", totalUnits=" + totalUnits;
+    }
+
+    /**
+     * Builds a timeline from Morse elements, inserts the gaps and merges the runs of the same state
+     */
+    static final class Builder {
+        private byte[] runs;
+        private int size = 0;
+        private int pendingGap = 0; // gap before the next element, units
+        private boolean started = false; // an element was added
+
+        Builder(int capacity) {
+            runs = new byte[Math.max(capacity, 16)];
+        }
+
+        Builder() {
+            this(16);
+        }
+
+        /**
+         * Adds a dot or a dash after the gap required by the previous calls
+         */
+        Builder element(boolean dash) {
+            if (started) {
+                run(false, Math.max(pendingGap, elementGapUnits));
+            }
+            run(true, dash ? dashUnits : dotUnits);
+            pendingGap = 0;
+            started = true;
+            return this;
+        }
+
+        /**
+         * The next element starts a new character
+         */
+        Builder endCharacter() {
+            pendingGap = Math.max(pendingGap, characterGapUnits);
+            return this;
+        }
+
+        /**
+         * The next element starts a new word
+         */
+        Builder endWord() {
+            pendingGap = wordGapUnits;
+            return this;
+        }
+
+        private void run(boolean keyDown, int units) {
+            while (units > 0) {
+                final int stateBit = keyDown ? KEY_DOWN : 0;
+                if (size > 0 && (runs[size - 1] & KEY_DOWN) == stateBit && (runs[size - 1] & MAX_RUN) < MAX_RUN) {
+                    // merge with the previous run of the same state
+                    final int n = Math.min(units, MAX_RUN - (runs[size - 1] & MAX_RUN));
+                    runs[size - 1] += (byte) n;
+                    units -= n;
+                    continue;
+                }
+                if (size == runs.length) {
+                    runs = Arrays.copyOf(runs, size * 2);
+                }
+                final int n = Math.min(units, MAX_RUN);
+                runs[size++] = (byte) (stateBit | n);
+                units -= n;
+            }
+        }
+
+        KeyingTimeline build() {
+            return new KeyingTimeline(Arrays.copyOf(runs, size));
+        }
+    }
+}
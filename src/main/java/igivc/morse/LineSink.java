@@ -0,0 +1,92 @@
+package igivc.morse;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sound card audio sink, the {@link SourceDataLine} is opened with the first write and kept open until {@link #close()}.
+ */
+class LineSink implements AudioSink {
+    private static final Logger logger = Logger.getLogger(LineSink.class.getSimpleName());
+    private final int sampleRate;
+    private final int bufferSizeInSamples;
+    private SourceDataLine line;
+    private byte[] bytes = new byte[0];
+    private long samplesWritten = 0;
+
+    /**
+     * @param sampleRate          sample rate, Hz
+     * @param bufferSizeInSamples size of the line buffer, it is the latency of the playback
+     */
+    LineSink(int sampleRate, int bufferSizeInSamples) {
+        if (sampleRate <= 0) throw new IllegalArgumentException("fs");
+        this.sampleRate = sampleRate;
+        this.bufferSizeInSamples = bufferSizeInSamples;
+    }
+
+    LineSink(int sampleRate) {
+        this(sampleRate, sampleRate / 5); // 200 ms
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public void write(short[] samples, int offset, int length) throws IOException {
+        if (line == null) {
+            open();
+        }
+        if (bytes.length < 2 * length) {
+            bytes = new byte[2 * length];
+        }
+        PcmSink.toLittleEndian(samples, offset, length, bytes);
+        line.write(bytes, 0, 2 * length); // blocks while the line buffer is full
+        samplesWritten += length;
+    }
+
+    private void open() throws IOException {
+        final AudioFormat af = PcmSource.defaultFormat(sampleRate);
+        try {
+            line = AudioSystem.getSourceDataLine(af);
+            line.open(af, 2 * bufferSizeInSamples);
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            line = null;
+            throw new IOException("Can't open audio line", e);
+        }
+        line.start();
+        logger.log(Level.INFO, "Line is opened");
+    }
+
+    @Override
+    public void flush() {
+        if (line != null) {
+            line.drain();
+        }
+    }
+
+    @Override
+    public long getSamplesWritten() {
+        return samplesWritten;
+    }
+
+    @Override
+    public boolean isRealTime() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (line != null) {
+            line.drain();
+            line.close();
+            line = null;
+        }
+    }
+}
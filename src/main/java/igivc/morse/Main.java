@@ -1,6 +1,6 @@
 package igivc.morse;
 
-import java.io.PrintWriter;
+import java.nio.file.Path;
 
 /**
  * Main class for the morse code transmitter.
@@ -20,10 +20,30 @@ public class Main {
         return (long) Math.sqrt(power);
     }
 
+    /**
+     * Opens an audio source for the command line argument:
+     * "-" is raw PCM from stdin, *.wav is a WAVE file, anything else is a raw PCM file
+     * (mono signed 16-bit little-endian, the sample rate is the optional second argument, 8000 by default).
+     */
+    private static AudioSource openSource(String[] args) throws Exception {
+        final int sampleRate = args.length > 1 ? Integer.parseInt(args[1]) : 8000;
+        if (args[0].equals("-")) {
+            return PcmSource.stdin(PcmSource.defaultFormat(sampleRate));
+        }
+        if (args[0].toLowerCase().endsWith(".wav")) {
+            return new WaveFileSource(Path.of(args[0]));
+        }
+        return PcmSource.open(Path.of(args[0]), PcmSource.defaultFormat(sampleRate));
+    }
+
     /**
      * Main method
      *
-     * @param args the arguments
+     * The envelope detector is selected by the system property morse.envelope=Hilbert|Quadrature (Hilbert by default).
+     * The system property morse.diagnostics=directory enables the diagnostic taps, see {@link DiagnosticTapConverter}.
+     * The system property morse.mode=Skimmer decodes every signal in the passband, see {@link Skimmer}.
+     *
+     * @param args the arguments: none to decode the sound card input, or a file to decode (see {@link #openSource})
      */
     public static void main(String[] args) throws Exception {
         /*
@@ -50,14 +70,29 @@ public class Main {
         System.in.read();
         receiver.stop();
         */
-        try (var writer = new PrintWriter("morse.txt")) {
-            Receiver receiver = new Receiver((s) -> {
-                System.out.print(s);
-                System.out.flush();
-                writer.print(s);
-                writer.flush();
-            });
-            receiver.receive();
+        final Receiver.EnvelopeDetector envelopeDetector =
+                Receiver.EnvelopeDetector.valueOf(System.getProperty("morse.envelope", "Hilbert"));
+        try (var output = new DecodedTextSink(TextOutput.console(),
+                new RollingFileOutput(Path.of("morse.txt"), 10 << 20 /* bytes */, 3))) {
+            if (System.getProperty("morse.mode", "Receiver").equals("Skimmer")) {
+                final Skimmer skimmer = new Skimmer(Skimmer.lines(output));
+                try (AudioSource source = args.length == 0 ? new SoundRecorder(8000) : openSource(args)) {
+                    skimmer.receive(source);
+                }
+                return;
+            }
+            Receiver receiver = new Receiver(output, envelopeDetector);
+            final String diagnostics = System.getProperty("morse.diagnostics");
+            if (diagnostics != null) {
+                receiver.setDiagnosticsDirectory(Path.of(diagnostics));
+            }
+            if (args.length == 0) {
+                receiver.receive();
+            } else {
+                try (AudioSource source = openSource(args)) {
+                    receiver.receive(source);
+                }
+            }
         }
     }
 }
@@ -0,0 +1,306 @@
+package igivc.morse;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table-driven bulk text to Morse codec, the format is the one of {@link TextToMorseProcessor#textToMorse}:
+ * characters are separated by '|', words by "| |", for example "....|..| |.-".
+ * <p>
+ * Encoding looks up {@code char[][]} indexed by the upper-case character, the characters without a code
+ * are word separators. Decoding walks the flat Morse tree of {@link MorseDecoder}.
+ * Both directions work on chunks: the input is read by blocks and the output is written by blocks,
+ * nothing is allocated per character. Large texts are split at word boundaries and encoded in parallel.
+ * The codec is immutable and can be shared across threads.
+ */
+final class MorseCodec {
+    static final int parallelThreshold = 1 << 16; // characters, shorter texts are encoded in the calling thread
+    private static final int bufferSize = 8192; // characters
+    private final char[][] codes; // indexed by the upper-case character, null if there is no code
+    private final char[] tree; // see MorseDecoder.buildTree
+    private final int maxCodeLength;
+
+    MorseCodec(Map<Integer, String> morseCodes) {
+        int size = 0;
+        int maxLength = 0;
+        for (var entry : morseCodes.entrySet()) {
+            size = Math.max(size, entry.getKey() + 1);
+            maxLength = Math.max(maxLength, entry.getValue().length());
+        }
+        codes = new char[size][];
+        for (var entry : morseCodes.entrySet()) {
+            codes[entry.getKey()] = entry.getValue().toCharArray();
+        }
+        maxCodeLength = maxLength;
+        tree = MorseDecoder.buildTree(morseCodes);
+    }
+
+    /**
+     * @return the code of the character (case-insensitive), null if there is no code
+     */
+    char[] codeOf(char c) {
+        final char u = Character.toUpperCase(c);
+        return u < codes.length ? codes[u] : null;
+    }
+
+    /**
+     * Encodes the text to Morse code, large texts are encoded in parallel
+     *
+     * @param text the text to encode
+     * @return the Morse code, for example: ".-|...|.-."
+     */
+    String encode(CharSequence text) {
+        if (text.length() >= parallelThreshold) {
+            return encodeParallel(text, parallelThreshold);
+        }
+        StringBuilder sb = new StringBuilder(text.length() * 4);
+        try {
+            encode(text, sb);
+        } catch (IOException e) {
+            throw new RuntimeException(e); // never thrown by StringBuilder
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Encodes the text to Morse code in the calling thread
+     */
+    void encode(CharSequence text, Appendable out) throws IOException {
+        final Encoder encoder = new Encoder(out);
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            encoder.put(text.charAt(i));
+        }
+        encoder.flush();
+    }
+
+    /**
+     * Encodes the text from the reader to Morse code, the reader is not closed
+     */
+    void encode(Reader reader, Appendable out) throws IOException {
+        final Encoder encoder = new Encoder(out);
+        final char[] in = new char[bufferSize];
+        int n;
+        while ((n = reader.read(in)) >= 0) {
+            for (int i = 0; i < n; i++) {
+                encoder.put(in[i]);
+            }
+        }
+        encoder.flush();
+    }
+
+    /**
+     * Encodes the text directly to the keying timeline, without the Morse string
+     */
+    KeyingTimeline toTimeline(CharSequence text) {
+        final KeyingTimeline.Builder builder = new KeyingTimeline.Builder(text.length() * 8);
+        boolean started = false;
+        for (int i = 0; i < text.length(); i++) {
+            final char[] code = codeOf(text.charAt(i));
+            if (code == null) {
+                if (started) builder.endWord();
+                continue;
+            }
+            builder.endCharacter();
+            for (char element : code) {
+                builder.element(element == '-');
+            }
+            started = true;
+        }
+        return builder.build();
+    }
+
+    /**
+     * Splits the text to chunks of about {@code chunkSize} characters at word boundaries
+     * and encodes the chunks in the common fork-join pool.
+     */
+    String encodeParallel(CharSequence text, int chunkSize) {
+        final List<int[]> chunks = new ArrayList<>();
+        final int length = text.length();
+        int from = 0;
+        while (from < length) {
+            int to = Math.min(length, from + chunkSize);
+            while (to < length && codeOf(text.charAt(to)) != null) { // move to the word separator
+                to++;
+            }
+            chunks.add(new int[]{from, to});
+            from = to;
+        }
+        final String[] encoded = chunks.parallelStream()
+                .map(chunk -> {
+                    StringBuilder sb = new StringBuilder((chunk[1] - chunk[0]) * 4);
+                    try {
+                        encode(CharBuffer.wrap(text, chunk[0], chunk[1]), sb);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e); // never thrown by StringBuilder
+                    }
+                    return sb.toString();
+                })
+                .toArray(String[]::new);
+        // the chunks are split at word separators, so the non-empty ones are joined as words
+        int total = 0;
+        for (String s : encoded) {
+            total += s.length() + 3;
+        }
+        StringBuilder result = new StringBuilder(total);
+        for (String s : encoded) {
+            if (s.isEmpty()) continue;
+            if (!result.isEmpty()) {
+                result.append("| |");
+            }
+            result.append(s);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Decodes Morse code to text, see {@link #decode(CharSequence, Appendable)}
+     */
+    String decode(CharSequence morse) {
+        StringBuilder sb = new StringBuilder(morse.length() / 3 + 1);
+        try {
+            decode(morse, sb);
+        } catch (IOException e) {
+            throw new RuntimeException(e); // never thrown by StringBuilder
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Decodes Morse code to text: '.' and '-' are elements, '|' ends a character, ' ' separates words,
+     * other characters are ignored. Unknown codes are decoded as {@link MorseDecoder#unknownCharacter}.
+     */
+    void decode(CharSequence morse, Appendable out) throws IOException {
+        final Decoder decoder = new Decoder(out);
+        final int length = morse.length();
+        for (int i = 0; i < length; i++) {
+            decoder.put(morse.charAt(i));
+        }
+        decoder.flush();
+    }
+
+    /**
+     * Decodes Morse code from the reader to text, the reader is not closed
+     */
+    void decode(Reader reader, Appendable out) throws IOException {
+        final Decoder decoder = new Decoder(out);
+        final char[] in = new char[bufferSize];
+        int n;
+        while ((n = reader.read(in)) >= 0) {
+            for (int i = 0; i < n; i++) {
+                decoder.put(in[i]);
+            }
+        }
+        decoder.flush();
+    }
+
+    /**
+     * Output block, written to the appendable when full
+     */
+    private static class Output {
+        final Appendable out;
+        final char[] buffer = new char[bufferSize];
+        int position = 0;
+
+        Output(Appendable out) {
+            this.out = out;
+        }
+
+        void flush() throws IOException {
+            if (position == 0) return;
+            if (out instanceof StringBuilder sb) {
+                sb.append(buffer, 0, position);
+            } else if (out instanceof Writer writer) {
+                writer.write(buffer, 0, position);
+            } else {
+                out.append(CharBuffer.wrap(buffer, 0, position));
+            }
+            position = 0;
+        }
+    }
+
+    private class Encoder extends Output {
+        private boolean started = false; // a code was written
+        private boolean wordGap = false; // a separator after the last code
+
+        Encoder(Appendable out) {
+            super(out);
+        }
+
+        void put(char c) throws IOException {
+            final char[] code = codeOf(c);
+            if (code == null) {
+                wordGap = started;
+                return;
+            }
+            if (position + maxCodeLength + 3 > buffer.length) {
+                flush();
+            }
+            if (started) {
+                buffer[position++] = '|';
+                if (wordGap) {
+                    buffer[position++] = ' ';
+                    buffer[position++] = '|';
+                }
+            }
+            System.arraycopy(code, 0, buffer, position, code.length);
+            position += code.length;
+            started = true;
+            wordGap = false;
+        }
+    }
+
+    private class Decoder extends Output {
+        private int index = 1; // current tree node
+        private boolean wordStarted = false; // a character was written after the last word gap
+
+        Decoder(Appendable out) {
+            super(out);
+        }
+
+        void put(char c) throws IOException {
+            switch (c) {
+                case '.', '-' -> {
+                    if (index < tree.length) { // a too long code stays out of the tree
+                        index = 2 * index + (c == '-' ? 1 : 0);
+                    }
+                }
+                case '|' -> endCharacter();
+                case ' ' -> {
+                    endCharacter();
+                    if (wordStarted) {
+                        write(' ');
+                        wordStarted = false;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        void flush() throws IOException {
+            endCharacter();
+            super.flush();
+        }
+
+        private void endCharacter() throws IOException {
+            if (index == 1) return; // no elements
+            write(index < tree.length && tree[index] != 0 ? tree[index] : MorseDecoder.unknownCharacter);
+            index = 1;
+            wordStarted = true;
+        }
+
+        private void write(char c) throws IOException {
+            if (position == buffer.length) {
+                super.flush();
+            }
+            buffer[position++] = c;
+        }
+    }
+}
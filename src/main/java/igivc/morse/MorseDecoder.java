@@ -0,0 +1,95 @@
+package igivc.morse;
+
+import java.nio.CharBuffer;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Decodes dashes and dots to characters for text output.
+ * <p>
+ * The Morse codes are kept in a flat binary tree: the root is 1, a dot moves from index i to 2*i,
+ * a dash to 2*i+1, so each element is one step and the character is {@code tree[index]} at the character gap.
+ * Decoded characters are put to a reusable {@link CharBuffer}, which is passed to the consumer;
+ * the consumer must not keep the buffer, it is overwritten by the next character.
+ */
+class MorseDecoder implements BiConsumer<SignalState, Integer> {
+    static final char unknownCharacter = '?';
+    private static final char[] tree = buildTree(new TextToMorseProcessor().getMorseCodes());
+    private static final double dashThreshold = 2; // dot durations, tone: dot < 2 <= dash
+    private static final double characterGapThreshold = 2; // dot durations, silence: element gap < 2 <= character gap
+    private static final double wordGapThreshold = 5; // dot durations, silence: character gap < 5 <= word gap
+    private final Consumer<CharBuffer> consumer;
+    private final CharBuffer output = CharBuffer.allocate(1);
+    private int index = 1; // current tree node
+    private boolean wordStarted = false; // a character was emitted after the last word gap
+
+    public MorseDecoder(Consumer<CharBuffer> consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Builds the tree from the code table, the first character wins when codes are duplicated
+     *
+     * @param morseCodes character to code, for example 'A' -> ".-"
+     * @return the tree, 0 for the nodes without a character
+     */
+    static char[] buildTree(Map<Integer, String> morseCodes) {
+        int depth = 0;
+        for (String code : morseCodes.values()) {
+            depth = Math.max(depth, code.length());
+        }
+        final char[] tree = new char[2 << depth];
+        for (var entry : morseCodes.entrySet()) {
+            int i = 1;
+            for (int j = 0; j < entry.getValue().length(); j++) {
+                i = 2 * i + (entry.getValue().charAt(j) == '-' ? 1 : 0);
+            }
+            if (tree[i] == 0) {
+                tree[i] = (char) entry.getKey().intValue();
+            }
+        }
+        return tree;
+    }
+
+    @Override
+    public void accept(SignalState ss, Integer dotDurationInSamples) {
+        final double dot = dotDurationInSamples;
+        if (dot <= 0) return;
+        if (ss.signalLevel == SignalLevel.High) {
+            if (index < tree.length) { // a too long code stays out of the tree
+                index = 2 * index + (ss.durationInSamples >= dashThreshold * dot ? 1 : 0);
+            }
+            return;
+        }
+        if (ss.durationInSamples >= characterGapThreshold * dot) {
+            endCharacter();
+        }
+        if (ss.durationInSamples >= wordGapThreshold * dot && wordStarted) {
+            emit(' ');
+            wordStarted = false;
+        }
+    }
+
+    /**
+     * Emits the pending character, if any, for example at the end of the transmission
+     */
+    void flush() {
+        endCharacter();
+    }
+
+    private void endCharacter() {
+        if (index == 1) return; // no elements
+        final char c = index < tree.length && tree[index] != 0 ? tree[index] : unknownCharacter;
+        index = 1;
+        wordStarted = true;
+        emit(c);
+    }
+
+    private void emit(char c) {
+        output.clear();
+        output.put(c);
+        output.flip();
+        consumer.accept(output);
+    }
+}
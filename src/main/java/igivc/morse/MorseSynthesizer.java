@@ -0,0 +1,193 @@
+package igivc.morse;
+
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Pull-based Morse audio synthesizer: renders the keying timeline into the caller's blocks on demand,
+ * so the memory does not depend on the message length and the playback can start after the first block.
+ * <p>
+ * A tone run is a sine wave starting from zero phase, its length is aligned to whole periods of the tone
+ * to avoid a click at the end. The message is followed by an element gap of silence.
+ * Dots and dashes are copied from the shared {@link WaveformTemplates}, gaps are bulk filled with zeros,
+ * other tones (for example a long key-down read from a file) are generated by the recursive oscillator.
+ * <p>
+ * A timing jitter imitates a hand key: every run is stretched by a random factor, see {@link #setJitter}.
+ */
+class MorseSynthesizer {
+    private static final short[] zeros = new short[1024];
+    private final KeyingTimeline timeline;
+    private final int sampleRate;
+    private final double freq;
+    private final double dotDurationMilliseconds;
+    private final double riseMilliseconds;
+    private final WaveformTemplates.ToneShaper shaper;
+    private WaveformTemplates templates8, templates16; // looked up on the first use
+    private int run = 0; // current run, timeline.size() is the trailing silence
+    private int remaining; // samples left in the current run
+    private boolean keyDown;
+    private int units; // length of the current run
+    private int position = 0; // samples rendered in the current run
+    private boolean finished = false;
+    private double jitter = 0; // standard deviation of the run length, fraction of the run
+    private Random random;
+
+    /**
+     * @param timeline                the message
+     * @param sampleRate              sample rate, Hz
+     * @param freq                    tone frequency, Hz
+     * @param dotDurationMilliseconds duration of the dot unit, ms (1200 / WPM)
+     * @param riseMilliseconds        rise and fall time of the tones (raised cosine), 0 for the keyed sine wave
+     */
+    MorseSynthesizer(KeyingTimeline timeline, int sampleRate, double freq, double dotDurationMilliseconds,
+                     double riseMilliseconds) {
+        if (sampleRate <= 0) throw new IllegalArgumentException("fs");
+        if (freq <= 0 || freq >= sampleRate / 2.0) throw new IllegalArgumentException("freq");
+        if (dotDurationMilliseconds <= 0) throw new IllegalArgumentException("dotDurationMilliseconds");
+        if (riseMilliseconds < 0) throw new IllegalArgumentException("riseMilliseconds");
+        this.timeline = timeline;
+        this.sampleRate = sampleRate;
+        this.freq = freq;
+        this.dotDurationMilliseconds = dotDurationMilliseconds;
+        this.riseMilliseconds = riseMilliseconds;
+        this.shaper = new WaveformTemplates.ToneShaper(sampleRate, freq, riseMilliseconds);
+        startRun();
+    }
+
+    MorseSynthesizer(KeyingTimeline timeline, int sampleRate, double freq, double dotDurationMilliseconds) {
+        this(timeline, sampleRate, freq, dotDurationMilliseconds, 0);
+    }
+
+    /**
+     * Enables the timing jitter, must be called before the first read.
+     * The runs are rendered by the oscillator instead of the templates.
+     *
+     * @param jitter standard deviation of the run lengths, fraction of the run, 0 to disable
+     * @param seed   seed of the random lengths, the same seed renders the same signal
+     */
+    void setJitter(double jitter, long seed) {
+        if (jitter < 0) throw new IllegalArgumentException("jitter");
+        this.jitter = jitter;
+        this.random = new Random(seed);
+        run = 0;
+        startRun();
+    }
+
+    /**
+     * @return samples in the tone of the length in units, aligned to whole periods
+     */
+    static int toneLength(int sampleRate, double freq, double dotDurationMilliseconds, int units) {
+        final int length = getNumOfSamples(sampleRate, dotDurationMilliseconds, units);
+        final int periodInSamples = Math.max(1, (int) (sampleRate / freq));
+        return length - length % periodInSamples;
+    }
+
+    /**
+     * @return true if the whole message is rendered
+     */
+    boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Renders the next 8-bit signed samples.
+     *
+     * @return number of samples rendered, -1 if the message is finished
+     */
+    int read(byte[] buffer, int offset, int length) {
+        if (finished) return -1;
+        if (templates8 == null) {
+            templates8 = WaveformTemplates.of(sampleRate, freq, dotDurationMilliseconds, 8, riseMilliseconds);
+        }
+        int n = 0;
+        while (n < length && !finished) {
+            final int count = Math.min(length - n, remaining);
+            final int to = offset + n;
+            if (!keyDown) {
+                Arrays.fill(buffer, to, to + count, (byte) 0);
+            } else {
+                final byte[] template = jitter == 0 ? templates8.bytes(units) : null;
+                if (template != null) {
+                    System.arraycopy(template, position, buffer, to, count);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        buffer[to + i] = (byte) (Byte.MAX_VALUE * shaper.next());
+                    }
+                }
+            }
+            n += count;
+            advance(count);
+        }
+        return n;
+    }
+
+    /**
+     * Renders the next 16-bit samples into the remaining space of the buffer.
+     *
+     * @return number of samples rendered, -1 if the message is finished
+     */
+    int read(ShortBuffer buffer) {
+        if (finished) return -1;
+        if (templates16 == null) {
+            templates16 = WaveformTemplates.of(sampleRate, freq, dotDurationMilliseconds, 16, riseMilliseconds);
+        }
+        int n = 0;
+        while (buffer.hasRemaining() && !finished) {
+            final int count = Math.min(buffer.remaining(), remaining);
+            if (!keyDown) {
+                for (int i = 0; i < count; i += zeros.length) {
+                    buffer.put(zeros, 0, Math.min(zeros.length, count - i));
+                }
+            } else {
+                final short[] template = jitter == 0 ? templates16.shorts(units) : null;
+                if (template != null) {
+                    buffer.put(template, position, count);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        buffer.put((short) (Short.MAX_VALUE * shaper.next()));
+                    }
+                }
+            }
+            n += count;
+            advance(count);
+        }
+        return n;
+    }
+
+    private void advance(int count) {
+        remaining -= count;
+        position += count;
+        while (remaining == 0 && !finished) {
+            run++;
+            startRun();
+        }
+    }
+
+    private void startRun() {
+        position = 0;
+        if (run < timeline.size()) {
+            keyDown = timeline.isKeyDown(run);
+            units = timeline.units(run);
+            // the run is at least a fifth of its nominal length
+            final double dot = jitter == 0 ? dotDurationMilliseconds
+                    : dotDurationMilliseconds * Math.max(0.2, 1 + jitter * random.nextGaussian());
+            if (keyDown) {
+                remaining = toneLength(sampleRate, freq, dot, units);
+                shaper.start(remaining);
+            } else {
+                remaining = getNumOfSamples(sampleRate, dot, units);
+            }
+        } else if (run == timeline.size()) {
+            keyDown = false;
+            units = KeyingTimeline.elementGapUnits;
+            remaining = getNumOfSamples(sampleRate, dotDurationMilliseconds, units);
+        } else {
+            finished = true;
+        }
+    }
+
+    private static int getNumOfSamples(int sampleRate, double dotDurationMilliseconds, int units) {
+        return (int) Math.round(sampleRate * units * dotDurationMilliseconds / 1000.0);
+    }
+}
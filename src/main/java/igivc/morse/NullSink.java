@@ -0,0 +1,38 @@
+package igivc.morse;
+
+/**
+ * Audio sink that drops the samples and only counts them, for benchmarks and tests.
+ */
+class NullSink implements AudioSink {
+    private final int sampleRate;
+    private long samplesWritten = 0;
+
+    NullSink(int sampleRate) {
+        if (sampleRate <= 0) throw new IllegalArgumentException("fs");
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public void write(short[] samples, int offset, int length) {
+        samplesWritten += length;
+    }
+
+    @Override
+    public long getSamplesWritten() {
+        return samplesWritten;
+    }
+
+    @Override
+    public boolean isRealTime() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,92 @@
+package igivc.morse;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Raw PCM audio sink, writes mono signed 16-bit little-endian samples ({@link PcmSource#defaultFormat}) to a stream.
+ */
+class PcmSink implements AudioSink {
+    private final OutputStream out;
+    private final int sampleRate;
+    private byte[] bytes = new byte[0];
+    private long samplesWritten = 0;
+
+    /**
+     * @param out        stream for PCM data, it is closed by {@link #close()}
+     * @param sampleRate sample rate, Hz
+     */
+    PcmSink(OutputStream out, int sampleRate) {
+        if (sampleRate <= 0) throw new IllegalArgumentException("fs");
+        this.out = out;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Creates a raw PCM file.
+     */
+    static PcmSink open(Path path, int sampleRate) throws IOException {
+        return new PcmSink(new BufferedOutputStream(Files.newOutputStream(path)), sampleRate);
+    }
+
+    /**
+     * Writes raw PCM to the standard output, for example {@code java ... | java -jar morse.jar -}.
+     */
+    static PcmSink stdout(int sampleRate) {
+        return new PcmSink(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)), sampleRate);
+    }
+
+    /**
+     * Converts the samples to 16-bit little-endian bytes
+     *
+     * @param out at least 2 * length bytes
+     */
+    static void toLittleEndian(short[] samples, int offset, int length, byte[] out) {
+        int j = 0;
+        for (int i = offset; i < offset + length; i++) {
+            final short sample = samples[i];
+            out[j++] = (byte) sample;
+            out[j++] = (byte) (sample >> 8);
+        }
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public void write(short[] samples, int offset, int length) throws IOException {
+        if (bytes.length < 2 * length) {
+            bytes = new byte[2 * length];
+        }
+        toLittleEndian(samples, offset, length, bytes);
+        out.write(bytes, 0, 2 * length);
+        samplesWritten += length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public long getSamplesWritten() {
+        return samplesWritten;
+    }
+
+    @Override
+    public boolean isRealTime() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
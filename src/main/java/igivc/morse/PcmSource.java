@@ -0,0 +1,146 @@
+package igivc.morse;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.BufferedInputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Raw PCM audio source, reads integer samples from a stream as fast as the stream allows.
+ * Multichannel frames are mixed down to mono.
+ */
+class PcmSource implements AudioSource {
+    private final InputStream in;
+    private final AudioFormat format;
+    private final int bytesPerSample;
+    private final int frameSize;
+    private long remainingBytes; // < 0 -> read until the end of the stream
+    private byte[] bytes = new byte[0];
+    private int carry = 0; // bytes of an incomplete frame kept from the previous read
+
+    /**
+     * @param in     stream with PCM data, it is closed by {@link #close()}
+     * @param format PCM_SIGNED or PCM_UNSIGNED, 8 or 16 bits per sample
+     */
+    public PcmSource(InputStream in, AudioFormat format) {
+        this(in, format, -1);
+    }
+
+    /**
+     * @param in       stream with PCM data, it is closed by {@link #close()}
+     * @param format   PCM_SIGNED or PCM_UNSIGNED, 8 or 16 bits per sample
+     * @param numBytes number of bytes to read, negative to read until the end of the stream
+     */
+    PcmSource(InputStream in, AudioFormat format, long numBytes) {
+        final int bits = format.getSampleSizeInBits();
+        if (bits != 8 && bits != 16) {
+            throw new IllegalArgumentException("Unsupported bits per sample: " + bits);
+        }
+        if (!AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding())
+                && !AudioFormat.Encoding.PCM_UNSIGNED.equals(format.getEncoding())) {
+            throw new IllegalArgumentException("Unsupported encoding: " + format.getEncoding());
+        }
+        this.in = in;
+        this.format = format;
+        this.bytesPerSample = bits / 8;
+        this.frameSize = bytesPerSample * format.getChannels();
+        this.remainingBytes = numBytes;
+    }
+
+    /**
+     * Opens a raw PCM file.
+     */
+    static PcmSource open(Path path, AudioFormat format) throws IOException {
+        return new PcmSource(new BufferedInputStream(Files.newInputStream(path)), format);
+    }
+
+    /**
+     * Reads raw PCM from the standard input, for example {@code sox ... -t raw - | java -jar morse.jar -}.
+     */
+    static PcmSource stdin(AudioFormat format) {
+        return new PcmSource(new BufferedInputStream(new FileInputStream(FileDescriptor.in)), format);
+    }
+
+    /**
+     * @return mono signed 16-bit little-endian format
+     */
+    static AudioFormat defaultFormat(int sampleRate) {
+        return new AudioFormat(sampleRate, 16, 1, true, false);
+    }
+
+    @Override
+    public int getSampleRate() {
+        return (int) format.getSampleRate();
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public int read(double[] buffer) throws IOException {
+        if (buffer.length == 0) return 0;
+        long want = (long) buffer.length * frameSize;
+        if (remainingBytes >= 0) {
+            want = Math.min(want, remainingBytes + carry);
+        }
+        if (bytes.length < want) {
+            bytes = new byte[(int) want];
+        }
+        int nBytes = carry;
+        while (nBytes < frameSize && nBytes < want) { // at least one whole frame
+            int n = in.read(bytes, nBytes, (int) want - nBytes);
+            if (n < 0) break;
+            nBytes += n;
+            if (remainingBytes >= 0) remainingBytes -= n;
+        }
+        final int nFrames = nBytes / frameSize;
+        if (nFrames == 0) {
+            return -1; // end of stream, an incomplete frame is dropped
+        }
+        convert(bytes, nFrames, buffer);
+        carry = nBytes - nFrames * frameSize;
+        System.arraycopy(bytes, nFrames * frameSize, bytes, 0, carry);
+        return nFrames;
+    }
+
+    private void convert(byte[] data, int nFrames, double[] out) {
+        final int channels = format.getChannels();
+        final boolean unsigned = AudioFormat.Encoding.PCM_UNSIGNED.equals(format.getEncoding());
+        final boolean bigEndian = format.isBigEndian();
+        final double scale = 1.0 / channels;
+        int j = 0;
+        for (int i = 0; i < nFrames; i++) {
+            double sum = 0;
+            for (int c = 0; c < channels; c++) {
+                int sample;
+                if (bytesPerSample == 1) {
+                    sample = unsigned ? (data[j] & 0xFF) - 128 : data[j];
+                    sum += sample / 128.0;
+                } else {
+                    final int b0 = data[j] & 0xFF;
+                    final int b1 = data[j + 1] & 0xFF;
+                    sample = bigEndian ? (b0 << 8) | b1 : (b1 << 8) | b0;
+                    sample = unsigned ? sample - 32768 : (short) sample;
+                    sum += sample / 32768.0; // normalization
+                }
+                j += bytesPerSample;
+            }
+            out[i] = sum * scale;
+        }
+    }
+
+    @Override
+    public boolean isRealTime() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
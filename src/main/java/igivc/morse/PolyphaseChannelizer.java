@@ -0,0 +1,162 @@
+package igivc.morse;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Oversampled polyphase filter bank: splits a real signal into n/2+1 evenly spaced narrowband complex channels,
+ * channel k is centred at k*sampleRate/n, moved to 0 Hz and decimated by {@code decimation}.
+ * <p>
+ * Every {@code decimation} samples the last taps*n samples are multiplied by the prototype low-pass filter
+ * (windowed sinc), folded to n samples (the polyphase sum) and transformed by one real FFT of size n:
+ * y_k = sum_i x[t-L+i]*h[i]*exp(-2*pi*j*k*(t-L+i)/n).
+ * The folded block is rotated by (t-L) mod n, so the phase of the channels is continuous between the frames.
+ * The cost of all channels is one FFT and taps*n multiply-adds per frame, instead of a filter per channel
+ * at the full sample rate. The delay is (taps*n-1)/2 samples.
+ * <p>
+ * A tone of amplitude A in the passband gives |y_k| = A, the magnitudes are the envelopes of the channels.
+ */
+class PolyphaseChannelizer {
+    private static final int taps = 4; // prototype filter length in FFT sizes
+    private final int sampleRate, n, decimation;
+    private final RealFftPlan plan;
+    private final double[] prototype;
+    private final double[] samples; // the last taps*n samples twice, the oldest at head
+    private final double[] folded;
+    private final double[] real, imag;
+    private final Consumer<PolyphaseChannelizer> frameConsumer;
+    private int head, sinceFrame;
+    private long position; // samples received
+
+    /**
+     * @param sampleRate    samples per second
+     * @param n             FFT size, a power of two, the channel spacing is sampleRate/n
+     * @param decimation    samples between the frames, 1..n
+     * @param bandwidth     passband width of a channel, Hz, the -6 dB points are at +-bandwidth/2;
+     *                      the transition band is about 5.5*sampleRate/(taps*n) wide
+     * @param frameConsumer called for every frame, see {@link #getReal()} and {@link #getImag()}
+     */
+    PolyphaseChannelizer(int sampleRate, int n, int decimation, double bandwidth,
+                         Consumer<PolyphaseChannelizer> frameConsumer) {
+        if (sampleRate <= 0) throw new IllegalArgumentException("fs");
+        if (decimation <= 0 || decimation > n) throw new IllegalArgumentException("decimation must be in 1..n");
+        if (bandwidth <= 0 || bandwidth >= sampleRate) throw new IllegalArgumentException("bandwidth");
+        this.plan = RealFftPlan.of(n);
+        this.sampleRate = sampleRate;
+        this.n = n;
+        this.decimation = decimation;
+        this.frameConsumer = frameConsumer;
+        final int length = taps * n;
+        prototype = new double[length];
+        final double cutoff = bandwidth / 2 / sampleRate; // cycles per sample
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            final double t = i - (length - 1) / 2.0;
+            final double sinc = t == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * t) / (Math.PI * t);
+            final double x = 2 * Math.PI * i / (length - 1);
+            prototype[i] = sinc * (0.42 - 0.5 * Math.cos(x) + 0.08 * Math.cos(2 * x)); // Blackman
+            sum += prototype[i];
+        }
+        for (int i = 0; i < length; i++) {
+            prototype[i] *= 2 / sum; // a real tone is split between +f and -f
+        }
+        samples = new double[2 * length];
+        folded = new double[n];
+        real = new double[n / 2 + 1];
+        imag = new double[n / 2 + 1];
+    }
+
+    /**
+     * @return FFT size, the number of channels is n/2+1
+     */
+    int size() {
+        return n;
+    }
+
+    int getChannelCount() {
+        return n / 2 + 1;
+    }
+
+    /**
+     * @return centre frequency of the channel k, Hz
+     */
+    double getChannelFrequency(int k) {
+        return k * (double) sampleRate / n;
+    }
+
+    /**
+     * @return index of the channel nearest to the frequency
+     */
+    int channel(double freq) {
+        return (int) Math.max(0, Math.min(n / 2, Math.round(freq * n / sampleRate)));
+    }
+
+    /**
+     * @return frames per second
+     */
+    double getFrameRate() {
+        return sampleRate / (double) decimation;
+    }
+
+    /**
+     * @return real parts of the channels in the last frame, the array is reused
+     */
+    double[] getReal() {
+        return real;
+    }
+
+    /**
+     * @return imaginary parts of the channels in the last frame, the array is reused
+     */
+    double[] getImag() {
+        return imag;
+    }
+
+    /**
+     * @return magnitude of the channel k in the last frame
+     */
+    double getMagnitude(int k) {
+        return Math.sqrt(real[k] * real[k] + imag[k] * imag[k]);
+    }
+
+    /**
+     * Receives the samples, the frame consumer is called for every {@code decimation} samples
+     */
+    void process(double[] buffer, int offset, int length) {
+        final int end = offset + length;
+        final int size = prototype.length;
+        for (int i = offset; i < end; i++) {
+            // every sample is written twice, so the last taps*n samples are contiguous: samples[head..head+size)
+            samples[head] = samples[head + size] = buffer[i];
+            head = head + 1 == size ? 0 : head + 1;
+            position++;
+            if (++sinceFrame == decimation) {
+                sinceFrame = 0;
+                transform();
+                frameConsumer.accept(this);
+            }
+        }
+    }
+
+    private void transform() {
+        // samples[head+i] is x[position-L+i], it goes to folded[(position-L+i) mod n]
+        final int rotation = (int) Math.floorMod(position - prototype.length, (long) n);
+        for (int i = 0; i < n; i++) {
+            double sum = 0;
+            for (int j = i; j < prototype.length; j += n) {
+                sum += samples[head + j] * prototype[j];
+            }
+            folded[(i + rotation) & (n - 1)] = sum;
+        }
+        plan.forward(folded, real, imag);
+    }
+
+    /**
+     * Reset internal state
+     */
+    void reset() {
+        Arrays.fill(samples, 0);
+        head = sinceFrame = 0;
+        position = 0;
+    }
+}
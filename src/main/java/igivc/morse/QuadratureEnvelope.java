@@ -0,0 +1,86 @@
+package igivc.morse;
+
+/**
+ * Streaming envelope detector, an alternative to the block {@link HilbertEnvelope}.
+ * <p>
+ * The signal is mixed with a numerically controlled oscillator at the tone frequency:
+ * I = x*cos(wt), Q = -x*sin(wt), which moves the tone to 0 Hz and its image to 2*freq.
+ * I and Q are low-pass filtered by a cascade of one-pole IIR filters (EMA):
+ * y[n] = y[n-1] + alpha*(x[n] - y[n-1]),
+ * and the envelope is 2*sqrt(I^2 + Q^2).
+ * <p>
+ * There are no blocks, the latency is the group delay of the low-pass filters,
+ * about stages/(2*pi*cutoffFreq) seconds (5 ms for 3 stages at 100 Hz).
+ */
+class QuadratureEnvelope implements SampleProcessor {
+    private static final int STAGES = 3;
+    private static final int RENORMALIZE_INTERVAL = 1024; // samples
+    private final double alpha;
+    private final double cosDelta, sinDelta; // NCO phase increment
+    private final double[] i = new double[STAGES];
+    private final double[] q = new double[STAGES];
+    private double cos = 1.0, sin = 0.0; // NCO phasor
+    private int sinceRenormalize = 0;
+
+    /**
+     * @param sampleRate sample rate, Hz
+     * @param freq       tone frequency, Hz
+     * @param cutoffFreq cutoff frequency of each low-pass stage, Hz;
+     *                   it limits the keying speed and the rejection of neighbouring signals
+     */
+    public QuadratureEnvelope(int sampleRate, double freq, double cutoffFreq) {
+        if (sampleRate <= 0) throw new IllegalArgumentException("fs");
+        if (freq <= 0 || freq >= sampleRate / 2.0) throw new IllegalArgumentException("freq");
+        if (cutoffFreq <= 0 || cutoffFreq >= sampleRate / 2.0) throw new IllegalArgumentException("cutoffFreq");
+        final double delta = 2.0 * Math.PI * freq / sampleRate;
+        cosDelta = Math.cos(delta);
+        sinDelta = Math.sin(delta);
+        alpha = 1.0 - Math.exp(-2.0 * Math.PI * cutoffFreq / sampleRate);
+    }
+
+    public QuadratureEnvelope(int sampleRate, double freq) {
+        this(sampleRate, freq, 100);
+    }
+
+    /** Process one sample, returns the envelope */
+    public double processSample(double x) {
+        final double alpha = this.alpha;
+        double iv = x * cos;
+        double qv = -x * sin;
+        for (int s = 0; s < STAGES; s++) {
+            iv = i[s] += alpha * (iv - i[s]);
+            qv = q[s] += alpha * (qv - q[s]);
+        }
+        // rotate the NCO phasor
+        final double c = cos * cosDelta - sin * sinDelta;
+        sin = sin * cosDelta + cos * sinDelta;
+        cos = c;
+        if (++sinceRenormalize == RENORMALIZE_INTERVAL) {
+            // keep |phasor| == 1, the rounding error of the rotation accumulates
+            final double norm = 1.0 / Math.sqrt(cos * cos + sin * sin);
+            cos *= norm;
+            sin *= norm;
+            sinceRenormalize = 0;
+        }
+        return 2.0 * Math.sqrt(iv * iv + qv * qv);
+    }
+
+    /** Process {@code length} samples in-place starting from {@code offset}, samples are replaced by the envelope */
+    @Override
+    public void processBuffer(double[] buffer, int offset, int length) {
+        final int end = offset + length;
+        for (int n = offset; n < end; n++) {
+            buffer[n] = processSample(buffer[n]);
+        }
+    }
+
+    /** Reset internal state */
+    public void reset() {
+        for (int s = 0; s < STAGES; s++) {
+            i[s] = q[s] = 0.0;
+        }
+        cos = 1.0;
+        sin = 0.0;
+        sinceRenormalize = 0;
+    }
+}
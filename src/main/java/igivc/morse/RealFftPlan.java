@@ -0,0 +1,134 @@
+package igivc.morse;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * FFT of a real signal of a power-of-two size n, done by an n/2 complex {@link FftPlan}.
+ * <p>
+ * Forward: the even samples go to the real part and the odd samples to the imaginary part
+ * of an n/2 complex signal, Z = FFT(z), and the spectrum is split back:
+ * X[k] = (Z[k] + conj(Z[n/2-k]))/2 + W^k * (Z[k] - conj(Z[n/2-k]))/2j, W = exp(-2*pi*i/n).
+ * Inverse is the same in reverse order. Only the half spectrum X[0..n/2] is stored,
+ * the other half is conj(X[n-k]) for a real signal.
+ * <p>
+ * A plan is immutable and can be shared across threads, transforms allocate nothing.
+ */
+final class RealFftPlan {
+    private static final AtomicReferenceArray<RealFftPlan> plans = new AtomicReferenceArray<>(31); // by log2(n)
+    private final int n;
+    private final FftPlan halfPlan;
+    private final double[] cos; // cos(2*pi*k/n), k <= n/4
+    private final double[] sin; // sin(2*pi*k/n), k <= n/4
+
+    private RealFftPlan(int n) {
+        this.n = n;
+        this.halfPlan = FftPlan.of(n / 2);
+        cos = new double[n / 4 + 1];
+        sin = new double[n / 4 + 1];
+        for (int k = 0; k <= n / 4; k++) {
+            final double ang = 2 * Math.PI * k / n;
+            cos[k] = Math.cos(ang);
+            sin[k] = Math.sin(ang);
+        }
+    }
+
+    /**
+     * @param n transform size, must be a power of two, at least 2
+     * @return cached plan for the size
+     */
+    static RealFftPlan of(int n) {
+        if (n < 2 || Integer.bitCount(n) != 1) {
+            throw new IllegalArgumentException("Length must be power of 2, at least 2");
+        }
+        final int index = Integer.numberOfTrailingZeros(n);
+        RealFftPlan plan = plans.get(index);
+        if (plan == null) {
+            plans.compareAndSet(index, null, new RealFftPlan(n));
+            plan = plans.get(index);
+        }
+        return plan;
+    }
+
+    int size() {
+        return n;
+    }
+
+    /**
+     * Forward transform.
+     *
+     * @param signal n real samples, not modified
+     * @param real   at least n/2+1 elements, receives the real part of X[0..n/2]
+     * @param imag   at least n/2+1 elements, receives the imaginary part of X[0..n/2]
+     */
+    void forward(double[] signal, double[] real, double[] imag) {
+        final int h = n / 2;
+        if (signal.length < n || real.length <= h || imag.length <= h) {
+            throw new IllegalArgumentException("Length must be at least " + n + ", spectrum length at least " + (h + 1));
+        }
+        for (int m = 0; m < h; m++) {
+            real[m] = signal[2 * m];
+            imag[m] = signal[2 * m + 1];
+        }
+        halfPlan.forward(real, imag);
+
+        // k == 0: Z[0] is paired with itself
+        final double z0r = real[0], z0i = imag[0];
+        real[0] = z0r + z0i;
+        imag[0] = 0;
+        real[h] = z0r - z0i;
+        imag[h] = 0;
+
+        // (k, h - k) pairs: X[k] = Xe + T, X[h-k] = conj(Xe - T), T = W^k * Xo
+        for (int k = 1; k <= h / 2; k++) {
+            final int c = h - k;
+            final double ar = real[k], ai = imag[k];
+            final double br = real[c], bi = -imag[c]; // conj(Z[h-k])
+            final double er = 0.5 * (ar + br), ei = 0.5 * (ai + bi); // Xe
+            final double or = 0.5 * (ai - bi), oi = -0.5 * (ar - br); // Xo = (Z[k] - conj(Z[h-k])) / 2j
+            final double wr = cos[k], wi = -sin[k];
+            final double tr = wr * or - wi * oi, ti = wr * oi + wi * or;
+            real[k] = er + tr;
+            imag[k] = ei + ti;
+            real[c] = er - tr;
+            imag[c] = -(ei - ti);
+        }
+    }
+
+    /**
+     * Inverse transform (divided by n), the imaginary parts of X[0] and X[n/2] are ignored.
+     *
+     * @param real   real part of X[0..n/2], destroyed
+     * @param imag   imaginary part of X[0..n/2], destroyed
+     * @param signal at least n elements, receives the real signal
+     */
+    void inverse(double[] real, double[] imag, double[] signal) {
+        final int h = n / 2;
+        if (signal.length < n || real.length <= h || imag.length <= h) {
+            throw new IllegalArgumentException("Length must be at least " + n + ", spectrum length at least " + (h + 1));
+        }
+        // Ge[k] = (X[k] + conj(X[h-k]))/2, Go[k] = W^-k * (X[k] - conj(X[h-k]))/2, Z[k] = Ge[k] + j*Go[k]
+        final double x0 = real[0], xh = real[h];
+        real[0] = 0.5 * (x0 + xh);
+        imag[0] = 0.5 * (x0 - xh);
+
+        for (int k = 1; k <= h / 2; k++) {
+            final int c = h - k;
+            final double ar = real[k], ai = imag[k];
+            final double br = real[c], bi = -imag[c]; // conj(X[h-k])
+            final double er = 0.5 * (ar + br), ei = 0.5 * (ai + bi); // Ge
+            final double dr = 0.5 * (ar - br), di = 0.5 * (ai - bi);
+            final double wr = cos[k], wi = sin[k]; // W^-k
+            final double or = wr * dr - wi * di, oi = wr * di + wi * dr; // Go
+            // Z[k] = Ge + j*Go, Z[h-k] = conj(Ge) + j*conj(Go)
+            real[k] = er - oi;
+            imag[k] = ei + or;
+            real[c] = er + oi;
+            imag[c] = -ei + or;
+        }
+        halfPlan.inverse(real, imag);
+        for (int m = 0; m < h; m++) {
+            signal[2 * m] = real[m];
+            signal[2 * m + 1] = imag[m];
+        }
+    }
+}
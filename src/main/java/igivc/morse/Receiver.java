@@ -1,13 +1,19 @@
 package igivc.morse;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.io.Writer;
+import java.nio.file.Path;
 import java.util.function.Consumer;
-import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 class Receiver {
-    private static final int sampleRate = 8000; // samples per second
+    /**
+     * Envelope detectors: block FFT based Hilbert transform or streaming I/Q down-conversion (low latency)
+     */
+    enum EnvelopeDetector {Hilbert, Quadrature}
+
+    private static final int defaultSampleRate = 8000; // samples per second
+    private static final int blockSize = 1024; // samples read from the audio source at once
     private static final double quality = 15;
     private static final double freq = 800; // Hz
     private static final double silenceLevel = 0.122; // 0..1
@@ -15,18 +21,51 @@ class Receiver {
     private static final double minDotDuration = 0.02; // seconds
     private static final double approxWindow = 0.2; // signal window in seconds
     private final SignalState[] savedSignalStates = new SignalState[2];
-    private final Consumer<String> consumer;
+    private final Consumer<CharSequence> consumer; // decoded text, the sequence is reused after the call
+    private final EnvelopeDetector envelopeDetector;
     private SignalState signalState = null;
     private int savedSignalStatesIndex = -1;
+    private double realTimeFactor = 0;
+    private Path diagnosticsDirectory = null; // diagnostic taps are off
+    private final Logger logger = Logger.getLogger(Receiver.class.getSimpleName());
+
+    public Receiver(Consumer<CharSequence> consumer) {
+        this(consumer, EnvelopeDetector.Hilbert);
+    }
 
-    public Receiver(Consumer<String> consumer) {
+    public Receiver(Consumer<CharSequence> consumer, EnvelopeDetector envelopeDetector) {
         this.consumer = consumer;
+        this.envelopeDetector = envelopeDetector;
     }
 
     /**
-     * Receives Morse symbols
+     * Enables the diagnostic taps: the band pass filter output, the envelope, the smoothed envelope
+     * and the signal levels (1 for High, 0 for Low) are recorded to filtered.tap, envelope.tap, smoothed.tap
+     * and levels.tap, see {@link DiagnosticTap}
+     *
+     * @param directory directory for the tap files, null to disable the taps
+     */
+    void setDiagnosticsDirectory(Path directory) {
+        this.diagnosticsDirectory = directory;
+    }
+
+    /**
+     * Receives Morse text from the sound card
      */
     void receive() throws Exception {
+        try (SoundRecorder recorder = new SoundRecorder(defaultSampleRate)) {
+            receive(recorder);
+        }
+    }
+
+    /**
+     * Receives Morse text from the audio source until the source is finished.
+     * Non-real-time sources (files, pipes) are decoded as fast as possible.
+     *
+     * @param source audio source, it is started but not closed by this method
+     */
+    void receive(AudioSource source) throws Exception {
+        final int sampleRate = source.getSampleRate();
         signalState = new SignalState();
         savedSignalStates[0] = savedSignalStates[1] = null;
         savedSignalStatesIndex = -1;
@@ -42,54 +81,79 @@ class Receiver {
         window = (double) nWindowSamples / sampleRate; // re-calculate window in seconds
 
         BandPassFilter filter = new BandPassFilter(sampleRate, freq, quality);
-        SoundRecorder recorder = new SoundRecorder(sampleRate);
-        recorder.start();
-        RingBuffer ringBuffer = new RingBuffer(sampleRate * 2); // two seconds buffer is more than enough
+        RingBuffer ringBuffer = new RingBuffer(Math.max(sampleRate * 2, nWindowSamples + blockSize)); // two seconds buffer is more than enough
         double[] samplesToProcess = new double[nWindowSamples];
         double[] processedSamples = new double[nWindowSamples];
         HilbertEnvelope hilbertEnvelope = new HilbertEnvelope(samplesToProcess, processedSamples);
+        QuadratureEnvelope quadratureEnvelope = new QuadratureEnvelope(sampleRate, freq);
         // overlapping
         final int shift = (int) (nWindowSamples * 0.9);
         final int leftOffset = (nWindowSamples - shift) / 2;
         final int rightOffset = nWindowSamples - leftOffset;
         //
-        DashDotClassifier dashDotClassifier = new DashDotClassifier(consumer);
-        DotDurationMeter dotDurationMeter = new DotDurationMeter(dashDotClassifier);
+        MorseDecoder decoder = new MorseDecoder(consumer::accept);
+        DotDurationMeter dotDurationMeter = new DotDurationMeter(decoder, sampleRate);
         final Debouncer debouncer = new Debouncer(dotDurationMeter, sampleRate);
         AttackReleaseSmoother smoother = new AttackReleaseSmoother(sampleRate);
-        SignalLevelClassifier classifier = new SignalLevelClassifier(debouncer, sampleRate);
 //        Consumer<Double> classifier = (Double sample) -> {
 //            if (sample > silenceLevel) debouncer.accept(SignalLevel.High); else debouncer.accept(SignalLevel.Low);
 //        };
         //
-        try (var writer = new PrintWriter("smoothed.csv")) {
-            //
-            while (recorder.isRunning()) {
-                double[] samples = recorder.get(); // get scaled sound data
-                if (samples == null) break; // recorder is finished?
-                filter.processBuffer(samples);
-                ringBuffer.write(samples);
+        final double[] samples = new double[blockSize];
+        long nSamples = 0;
+        final long startNanos = System.nanoTime();
+        try (var filteredTap = DiagnosticTap.open(diagnosticsDirectory, "filtered", sampleRate);
+             var envelopeTap = DiagnosticTap.open(diagnosticsDirectory, "envelope", sampleRate);
+             var smoothedTap = DiagnosticTap.open(diagnosticsDirectory, "smoothed", sampleRate);
+             var levelsTap = DiagnosticTap.open(diagnosticsDirectory, "levels", sampleRate)) {
+            final SignalLevelClassifier classifier = new SignalLevelClassifier(!levelsTap.isEnabled() ? debouncer
+                    : (level, duration) -> {
+                levelsTap.publishRun(level == SignalLevel.High ? 1 : 0, duration);
+                debouncer.acceptRun(level, duration);
+            }, sampleRate);
+            source.start();
+            while (true) {
+                int n = source.read(samples); // get scaled sound data
+                if (n < 0) break; // source is finished
+                nSamples += n;
+                filter.processBuffer(samples, 0, n);
+                filteredTap.publish(samples, 0, n);
+                if (envelopeDetector == EnvelopeDetector.Quadrature) {
+                    quadratureEnvelope.processBuffer(samples, 0, n);
+                    processEnvelope(classifier, smoother, 0, n, samples, envelopeTap, smoothedTap);
+                    continue;
+                }
+                ringBuffer.write(samples, 0, n);
                 while (ringBuffer.getSize() >= nWindowSamples) {
                     ringBuffer.copyTo(samplesToProcess, 0, nWindowSamples);
                     ringBuffer.discard(shift);
                     hilbertEnvelope.envelope();
-                    processEnvelope(classifier, smoother, leftOffset, rightOffset, processedSamples, writer);
+                    processEnvelope(classifier, smoother, leftOffset, rightOffset, processedSamples,
+                            envelopeTap, smoothedTap);
                 }
             }
-            //
-
+            debouncer.flush(); // the last element is not followed by a long enough silence
+            decoder.flush();
         }
+        final double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        realTimeFactor = elapsedSeconds > 0 ? nSamples / (double) sampleRate / elapsedSeconds : 0;
+        logger.log(Level.INFO, String.format("Decoded %.1f s of audio in %.3f s, real-time factor %.1f",
+                nSamples / (double) sampleRate, elapsedSeconds, realTimeFactor));
+    }
 
+    /**
+     * @return audio duration divided by processing time of the last {@link #receive(AudioSource)} call
+     */
+    double getRealTimeFactor() {
+        return realTimeFactor;
     }
 
-    private void processEnvelope(Consumer<Double> classifier, Function<Double, Double> smoother, int leftOffset, int rightOffset,
-                                 double[] processedSamples, PrintWriter writer) throws IOException {
-        for (int i = leftOffset; i < rightOffset; i++) {
-            double x = processedSamples[i];
-            double y = smoother.apply(x);
-            writer.println(Integer.toString ((int)(y * 32768)));
-            writer.flush();
-            classifier.accept(y);
-        }
+    private void processEnvelope(SampleProcessor classifier, SampleProcessor smoother, int leftOffset, int rightOffset,
+                                 double[] processedSamples, DiagnosticTap envelopeTap, DiagnosticTap smoothedTap) {
+        final int length = rightOffset - leftOffset;
+        envelopeTap.publish(processedSamples, leftOffset, length);
+        smoother.processBuffer(processedSamples, leftOffset, length);
+        smoothedTap.publish(processedSamples, leftOffset, length);
+        classifier.processBuffer(processedSamples, leftOffset, length);
     }
 }
@@ -21,10 +21,16 @@ final class RingBuffer {
     }
 
     public void write(double[] samples) {
+        write(samples, 0, samples.length);
+    }
+
+    public void write(double[] samples, int offset, int srcLength) {
         if (isFull()) {
             throw new IndexOutOfBoundsException("Overfilled");
         }
-        final int srcLength = samples.length;
+        if (offset < 0 || srcLength < 0 || offset + srcLength > samples.length) {
+            throw new IndexOutOfBoundsException("src range");
+        }
         if (srcLength == 0) return;
 
         if (srcLength > getFreeSpace()) {
@@ -32,11 +38,11 @@ final class RingBuffer {
         }
 
         int first = Math.min(srcLength, buf.length - tail);
-        System.arraycopy(samples, 0, buf, tail, first);
+        System.arraycopy(samples, offset, buf, tail, first);
 
         int rem = srcLength - first;
         if (rem > 0) {
-            System.arraycopy(samples, first, buf, 0, rem);
+            System.arraycopy(samples, offset + first, buf, 0, rem);
         }
 
 //        tail += srcLength;
@@ -0,0 +1,81 @@
+package igivc.morse;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Decoded text file output, the file is rolled when it reaches the size limit:
+ * morse.txt is renamed to morse.txt.1, morse.txt.1 to morse.txt.2 and so on, the oldest file is deleted.
+ * The file is rolled between batches, so it can be a bit larger than the limit.
+ */
+class RollingFileOutput implements TextOutput {
+    private final Path path;
+    private final long maxBytes;
+    private final int maxBackups;
+    private OutputStream out;
+    private long size;
+
+    /**
+     * @param path       the file, it is truncated
+     * @param maxBytes   size of the file to roll it
+     * @param maxBackups number of the rolled files to keep
+     */
+    RollingFileOutput(Path path, long maxBytes, int maxBackups) throws IOException {
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes");
+        if (maxBackups < 0) throw new IllegalArgumentException("maxBackups");
+        this.path = path;
+        this.maxBytes = maxBytes;
+        this.maxBackups = maxBackups;
+        open();
+    }
+
+    private void open() throws IOException {
+        out = new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+        size = 0;
+    }
+
+    private Path backup(int index) {
+        return path.resolveSibling(path.getFileName() + "." + index);
+    }
+
+    private void roll() throws IOException {
+        out.close();
+        if (maxBackups > 0) {
+            Files.deleteIfExists(backup(maxBackups));
+            for (int i = maxBackups - 1; i >= 1; i--) {
+                if (Files.exists(backup(i))) {
+                    Files.move(backup(i), backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(path, backup(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        open();
+    }
+
+    @Override
+    public void write(String text) throws IOException {
+        if (size >= maxBytes) {
+            roll();
+        }
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes);
+        size += bytes.length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,225 @@
+package igivc.morse;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free single-producer/single-consumer queue of sample blocks, the blocks are preallocated and reused.
+ * <p>
+ * The producer fills the block returned by {@link #beginWrite()} in place and publishes it by {@link #endWrite(int)},
+ * the consumer copies the samples out by {@link #read(double[])}. Every slot has a sequence number (seqlock):
+ * odd while the producer writes the slot, even when the block is published, so the consumer detects a block
+ * overwritten by the producer (the {@link OverrunPolicy#DropOldest} policy) and skips it. The consumer marks a block
+ * read by negating its sequence, a published block which is not marked is counted as lost when it is overwritten.
+ * <p>
+ * The threads wait by parking for a short time, a waiting thread is unparked by the other side.
+ */
+final class SampleBlockQueue {
+    /**
+     * What the producer does when the queue is full
+     */
+    enum OverrunPolicy {
+        /** wait until the consumer frees a block */
+        Block,
+        /** overwrite the oldest block, the consumer skips it */
+        DropOldest,
+        /** drop the new block */
+        DropNewest
+    }
+
+    private static final long parkNanos = TimeUnit.MILLISECONDS.toNanos(10);
+    private final double[][] blocks;
+    private final int[] lengths;
+    private final AtomicLongArray sequences; // 2*index+1 while writing, 2*index+2 when published, -(2*index+2) when read
+    private final int mask;
+    private final OverrunPolicy policy;
+    private final double[] scratch; // the block of the dropped newest data
+    private final AtomicLong head = new AtomicLong(); // next block to read, written by the consumer
+    private final AtomicLong tail = new AtomicLong(); // next block to write, written by the producer
+    private final AtomicLong overruns = new AtomicLong(); // blocks lost
+    private volatile boolean closed = false;
+    private volatile Thread waitingConsumer, waitingProducer;
+    private long writeIndex = -1; // block being written, -1 if the new data is dropped
+    private int readOffset = 0; // samples of the head block already read
+    private volatile int maxDepth = 0;
+
+    /**
+     * @param capacity  number of blocks, rounded up to a power of two
+     * @param blockSize samples in a block
+     * @param policy    what to do when the queue is full
+     */
+    SampleBlockQueue(int capacity, int blockSize, OverrunPolicy policy) {
+        if (capacity < 2) throw new IllegalArgumentException("capacity");
+        if (blockSize < 1) throw new IllegalArgumentException("blockSize");
+        final int size = Integer.highestOneBit(capacity - 1) << 1;
+        blocks = new double[size][blockSize];
+        lengths = new int[size];
+        sequences = new AtomicLongArray(size);
+        mask = size - 1;
+        this.policy = policy;
+        scratch = new double[blockSize];
+    }
+
+    int getCapacity() {
+        return blocks.length;
+    }
+
+    int getBlockSize() {
+        return scratch.length;
+    }
+
+    OverrunPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return number of blocks lost: dropped by the producer or overwritten before the consumer read them
+     */
+    long getOverruns() {
+        return overruns.get();
+    }
+
+    /**
+     * @return number of blocks in the queue
+     */
+    int getDepth() {
+        return (int) Math.min(blocks.length, tail.get() - head.get());
+    }
+
+    /**
+     * @return the maximal number of blocks in the queue seen by the producer
+     */
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Producer: returns the block to fill, the block is not visible to the consumer until {@link #endWrite}.
+     * If the queue is full the policy is applied, the data of a dropped block is written to a scratch block.
+     *
+     * @return block of {@link #getBlockSize()} samples
+     */
+    double[] beginWrite() {
+        long t = tail.get();
+        final int depth = (int) Math.min(Integer.MAX_VALUE, t - head.get());
+        maxDepth = Math.max(maxDepth, Math.min(blocks.length, depth));
+        if (depth >= blocks.length) {
+            switch (policy) {
+                case Block -> {
+                    waitingProducer = Thread.currentThread();
+                    while (t - head.get() >= blocks.length && !closed) {
+                        LockSupport.parkNanos(this, parkNanos);
+                    }
+                    waitingProducer = null;
+                    if (closed) {
+                        writeIndex = -1;
+                        return scratch;
+                    }
+                }
+                case DropNewest -> {
+                    overruns.incrementAndGet();
+                    writeIndex = -1;
+                    return scratch;
+                }
+                case DropOldest -> {
+                    // the overwritten block is counted below
+                }
+            }
+        }
+        writeIndex = t;
+        final int slot = (int) (t & mask);
+        final long previous = sequences.getAndSet(slot, 2 * t + 1);
+        if (previous > 0 && previous % 2 == 0) { // published and not read
+            overruns.incrementAndGet();
+        }
+        // getAndSet is a volatile read too, the later data writes can't move before the odd sequence,
+        // so the consumer's re-check sees the overwrite
+        return blocks[slot];
+    }
+
+    /**
+     * Producer: publishes the block returned by {@link #beginWrite()}
+     *
+     * @param length number of samples written to the block
+     */
+    void endWrite(int length) {
+        if (writeIndex < 0) return; // dropped
+        final int slot = (int) (writeIndex & mask);
+        lengths[slot] = length;
+        sequences.lazySet(slot, 2 * writeIndex + 2); // release: the data is visible before the sequence
+        tail.lazySet(writeIndex + 1);
+        writeIndex = -1;
+        final Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Consumer: copies the next samples, blocks while the queue is empty
+     *
+     * @return number of samples, -1 if the queue is closed and empty
+     */
+    int read(double[] buffer) {
+        if (buffer.length == 0) return 0;
+        while (true) {
+            final long h = head.get();
+            final int slot = (int) (h & mask);
+            final long sequence = sequences.get(slot);
+            if (sequence < 2 * h + 2) { // not published yet
+                if (closed && tail.get() == h) {
+                    return -1;
+                }
+                waitingConsumer = Thread.currentThread();
+                if (sequences.get(slot) < 2 * h + 2 && !closed) {
+                    LockSupport.parkNanos(this, parkNanos);
+                }
+                waitingConsumer = null;
+                continue;
+            }
+            if (sequence == 2 * h + 2) {
+                final int length = lengths[slot];
+                final int n = Math.min(buffer.length, length - readOffset);
+                System.arraycopy(blocks[slot], readOffset, buffer, 0, Math.max(0, n));
+                VarHandle.acquireFence(); // the copy is done before the sequence is checked again
+                final boolean last = n >= 0 && readOffset + n == length;
+                // the last part marks the block read, so the producer does not count it as lost
+                if (n >= 0 && (last ? sequences.compareAndSet(slot, sequence, -sequence)
+                        : sequences.get(slot) == sequence)) {
+                    readOffset += n;
+                    if (last) {
+                        readOffset = 0;
+                        head.set(h + 1);
+                        final Thread producer = waitingProducer;
+                        if (producer != null) {
+                            LockSupport.unpark(producer);
+                        }
+                    }
+                    if (n > 0) return n;
+                    continue; // empty block
+                }
+            }
+            // overwritten by the producer, which has counted it: skip to the oldest block which may be valid
+            final long newHead = Math.max(h + 1, tail.get() - blocks.length);
+            readOffset = 0;
+            head.set(newHead);
+        }
+    }
+
+    /**
+     * Wakes up the waiting threads, the consumer reads the published blocks and then gets -1
+     */
+    void close() {
+        closed = true;
+        final Thread consumer = waitingConsumer, producer = waitingProducer;
+        if (consumer != null) LockSupport.unpark(consumer);
+        if (producer != null) LockSupport.unpark(producer);
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+}
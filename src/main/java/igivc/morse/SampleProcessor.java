@@ -0,0 +1,20 @@
+package igivc.morse;
+
+/**
+ * Block-oriented stage of the receive chain working on primitive samples.
+ * A stage either transforms the block in-place (filters, envelope detectors, smoothers)
+ * or consumes it and passes the result to the next stage.
+ */
+interface SampleProcessor {
+    /**
+     * Process {@code length} samples starting from {@code offset}
+     */
+    void processBuffer(double[] buffer, int offset, int length);
+
+    /**
+     * Process all samples of the buffer
+     */
+    default void processBuffer(double[] buffer) {
+        processBuffer(buffer, 0, buffer.length);
+    }
+}
@@ -1,55 +1,74 @@
 package igivc.morse;
 
-import java.io.FileNotFoundException;
-import java.io.PrintWriter;
-import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.function.Consumer;
+/**
+ * Converts the envelope to signal levels with hysteresis, the thresholds follow P10 (noise) and P90 (tone)
+ * of the latest samples. Levels are passed to the next stage as runs: a run is sent when the level changes,
+ * and the unfinished run is sent at the end of every block.
+ */
+class SignalLevelClassifier implements SampleProcessor {
 
-class SignalLevelClassifier implements Consumer<Double> {
-
-    private final int nSamples;
-    private final Consumer<SignalLevel> signalLevelConsumer;
-    private final Double[] arrWindow;
-    private final List<Double> window = new LinkedList<>();
+    private static final double toneReferenceSeconds = 2; // decay time of the reference tone level
+    private static final double maxToneChange = 10; // relative change of P90 per second, faster than fading
+    private final SignalRunConsumer signalLevelConsumer;
+    private final SlidingPercentile p10;
+    private final SlidingPercentile p90;
     private double toneOn, toneOff, tone, noise;
+    private double toneReference = 0; // the highest recent P90, decays slowly
+    private final double toneReferenceDecay; // per sample
+    private final double maxToneStep; // relative change of P90 per sample
     private SignalLevel currentLevel = SignalLevel.Low;
+    private SignalLevel runLevel = SignalLevel.Low;
+    private int runLength = 0;
 
-    public SignalLevelClassifier(Consumer<SignalLevel> signalLevelConsumer, int sampleRate, double windowInterval) {
+    public SignalLevelClassifier(SignalRunConsumer signalLevelConsumer, int sampleRate, double windowInterval) {
         this.signalLevelConsumer = signalLevelConsumer;
-        nSamples = (int) (sampleRate * windowInterval);
-        arrWindow = new Double[nSamples];
+        final int nSamples = (int) (sampleRate * windowInterval);
+        p10 = new SlidingPercentile(nSamples, 0.1);
+        p90 = new SlidingPercentile(nSamples, 0.9);
+        toneReferenceDecay = Math.exp(-1.0 / (sampleRate * toneReferenceSeconds));
+        maxToneStep = maxToneChange / sampleRate;
     }
 
-    public SignalLevelClassifier(Consumer<SignalLevel> signalLevelConsumer, int sampleRate) {
+    public SignalLevelClassifier(SignalRunConsumer signalLevelConsumer, int sampleRate) {
         this(signalLevelConsumer, sampleRate, 0.1 /* seconds */);
     }
 
+    /**
+     * Classifies envelope samples, the buffer is not modified.
+     */
     @Override
-    public void accept(Double x) {
-        window.addLast(x);
-        if (window.size() == nSamples) {
-            window.toArray(arrWindow);
-            Arrays.sort(arrWindow);
-            noise = percentile(0.1); // P10
-            tone = percentile(0.9); // P90
-            if (tone / noise > 4) {
+    public void processBuffer(double[] buffer, int offset, int length) {
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            final double x = buffer[i];
+            p10.add(x);
+            p90.add(x);
+            if (!p10.isFull()) {
+                continue;
+            }
+            noise = p10.get(); // P10
+            final double previousTone = tone;
+            tone = p90.get(); // P90
+            toneReference = Math.max(tone, toneReference * toneReferenceDecay);
+            // the window of a gap has only the noise and the decay of the tone, its P90 is far below
+            // the recent tones and would lower the thresholds, so the next element would start too early;
+            // while an edge enters or leaves the window P90 runs along the edge, the thresholds wait for it to settle
+            if (tone / noise > 4 && tone > 0.5 * toneReference
+                    && Math.abs(tone - previousTone) < maxToneStep * tone) {
                 boolean firstUpdate = toneOn == 0;
                 // initialize thresholds
                 calculateThresholds();
                 if (firstUpdate) {
                     // send detected levels
-                    for (Double sample : window) {
-                        acceptSignalLevel(sample);
+                    for (int j = 0; j < p10.getSize(); j++) {
+                        acceptSignalLevel(p10.valueAt(j));
                     }
-                    window.removeFirst();
-                    return;
+                    continue;
                 }
             }
             acceptSignalLevel(x);
-            window.removeFirst();
         }
+        flushRun();
     }
 
     private void calculateThresholds() {
@@ -57,18 +76,23 @@ class SignalLevelClassifier implements Consumer<Double> {
         toneOff = noise + 0.30 * (tone - noise);
     }
 
-    private double percentile(double p) {
-        int k = (int) Math.floor(p * (arrWindow.length - 1));
-        return arrWindow[k];
-    }
-
-    private void acceptSignalLevel(Double sample) {
+    private void acceptSignalLevel(double sample) {
         if (sample > toneOn) {
             currentLevel = SignalLevel.High;
         } else if (sample < toneOff) {
             currentLevel = SignalLevel.Low;
         }
-        signalLevelConsumer.accept(currentLevel);
+        if (currentLevel != runLevel) {
+            flushRun();
+            runLevel = currentLevel;
+        }
+        runLength++;
+    }
 
+    private void flushRun() {
+        if (runLength > 0) {
+            signalLevelConsumer.acceptRun(runLevel, runLength);
+            runLength = 0;
+        }
     }
 }
@@ -0,0 +1,10 @@
+package igivc.morse;
+
+/**
+ * Consumer of signal level runs (edge events): the level lasted {@code durationInSamples} samples.
+ * Consecutive runs may have the same level, a long run is reported in parts as the samples arrive.
+ */
+@FunctionalInterface
+interface SignalRunConsumer {
+    void acceptRun(SignalLevel signalLevel, int durationInSamples);
+}
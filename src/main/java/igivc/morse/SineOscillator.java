@@ -0,0 +1,37 @@
+package igivc.morse;
+
+/**
+ * Recursive sine oscillator: sin(w*n) = 2*cos(w)*sin(w*(n-1)) - sin(w*(n-2)),
+ * one multiplication per sample instead of {@link Math#sin}.
+ * The phase is continuous between calls, {@link #reset} starts from zero phase.
+ */
+final class SineOscillator {
+    private final double k; // 2*cos(w)
+    private final double sin1, sin2; // sin(-w), sin(-2w)
+    private double s1, s2; // the previous two samples
+
+    /**
+     * @param delta phase increment per sample, radians
+     */
+    SineOscillator(double delta) {
+        k = 2 * Math.cos(delta);
+        sin1 = Math.sin(-delta);
+        sin2 = Math.sin(-2 * delta);
+        reset();
+    }
+
+    /**
+     * The next sample is sin(0)
+     */
+    void reset() {
+        s1 = sin1;
+        s2 = sin2;
+    }
+
+    double next() {
+        final double s = k * s1 - s2;
+        s2 = s1;
+        s1 = s;
+        return s;
+    }
+}
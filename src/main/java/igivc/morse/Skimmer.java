@@ -0,0 +1,412 @@
+package igivc.morse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Wideband CW skimmer: decodes every signal in the passband instead of the single tone of {@link Receiver}.
+ * <p>
+ * A shared FFT (Hann window, half overlapping frames) measures the spectrum, every bin keeps a peak-hold level
+ * which decays slowly, so a keyed carrier stays visible between the elements. The noise floor is the median
+ * of the levels. A spectral peak above the floor by {@link #openDb} for {@link #confirmFrames} frames
+ * opens a channel with its own {@link ToneDecoder}, the decoder first decodes the last {@link #historySeconds}
+ * of the envelope, so the beginning of the message is not lost. A channel is closed when its level stays below
+ * {@link #closeDb} above the floor for {@link #closeSeconds}.
+ * A peak much weaker than a close neighbour is the keying sideband of the neighbour, not a signal.
+ * <p>
+ * The envelopes of all channels come from one {@link PolyphaseChannelizer} at about {@link #channelRate} Hz,
+ * so an open channel costs its decoder at the decimated rate, and the filter bank costs one FFT per frame
+ * whatever the number of the channels.
+ */
+class Skimmer {
+    /**
+     * Receives the decoded text of the channels, the channels are identified by their frequencies
+     */
+    interface Listener {
+        /**
+         * @param freq frequency of the channel, Hz
+         * @param text decoded text, the sequence is reused after the call
+         */
+        void text(double freq, CharSequence text);
+
+        default void opened(double freq) {
+        }
+
+        default void closed(double freq) {
+        }
+    }
+
+    static final double openDb = 12; // peak above the noise floor to open a channel
+    static final double closeDb = 6; // level above the noise floor to keep the channel
+    static final int confirmFrames = 3; // consecutive frames with the peak to open a channel
+    static final double closeSeconds = 5; // silence before the channel is closed
+    static final double historySeconds = 2; // envelope decoded by a new channel
+    private static final double binHz = 8; // approximate FFT resolution
+    private static final double holdSeconds = 1.5; // decay time of the peak-hold levels
+    private static final double minSpacingHz = 40; // between the channels
+    private static final double sidebandHz = 150; // keying sidebands of a strong signal reach that far
+    // the peak-hold keying sidebands fall like the harmonics of a square wave, 6 dB per octave of the distance:
+    // a peak weaker than the neighbour by 16 dB at 40 Hz, 24 dB at 100 Hz is taken for a sideband
+    private static final double sidebandDb = 4; // at 10 Hz
+    private static final double bandwidth = 50; // Hz, passband of the channel filters
+    private static final double channelSpacingHz = 16; // at most, between the filter bank channels
+    static final double channelRate = 500; // envelope samples per second, approximately
+    private static final int maxChannels = 64;
+    private static final int blockSize = 1024; // samples read from the audio source at once
+    private final Listener listener;
+    private final double lowHz, highHz;
+    private int sampleRate;
+    private RealFftPlan plan;
+    private double[] window, frame, windowed, real, imag, level, sorted;
+    private int frameFill, hop, lowBin, highBin, sidebandBins;
+    private double decay;
+    private long frameIndex;
+    private PolyphaseChannelizer channelizer;
+    private int lowChannel, envelopeRate, nEnvelopes;
+    private double[][] envelopes; // of the filter bank channels from lowChannel, in the current block
+    private RingBuffer[] histories; // of the envelopes
+    private double[] replay;
+    private final List<Channel> channels = new ArrayList<>();
+    private final List<Candidate> candidates = new ArrayList<>();
+    private final Logger logger = Logger.getLogger(Skimmer.class.getSimpleName());
+
+    private static final class Channel {
+        final ToneDecoder decoder;
+        final int bin; // of the spectrum
+        final int envelope; // index in envelopes
+        long lastActiveFrame;
+
+        Channel(ToneDecoder decoder, int bin, int envelope, long frame) {
+            this.decoder = decoder;
+            this.bin = bin;
+            this.envelope = envelope;
+            this.lastActiveFrame = frame;
+        }
+    }
+
+    private static final class Candidate {
+        double freq;
+        int bin;
+        int frames = 1;
+        long lastFrame;
+
+        Candidate(double freq, int bin, long frame) {
+            this.freq = freq;
+            this.bin = bin;
+            this.lastFrame = frame;
+        }
+    }
+
+    /**
+     * @param listener receives the decoded text
+     * @param lowHz    lower edge of the passband, Hz
+     * @param highHz   upper edge of the passband, Hz
+     */
+    Skimmer(Listener listener, double lowHz, double highHz) {
+        if (lowHz <= 0 || highHz <= lowHz) throw new IllegalArgumentException("passband");
+        this.listener = listener;
+        this.lowHz = lowHz;
+        this.highHz = highHz;
+    }
+
+    Skimmer(Listener listener) {
+        this(listener, 300, 3300);
+    }
+
+    /**
+     * Prepares the buffers for the sample rate, must be called before {@link #process}
+     */
+    void start(int sampleRate) {
+        if (sampleRate <= 0) throw new IllegalArgumentException("fs");
+        if (highHz >= sampleRate / 2.0) throw new IllegalArgumentException("passband");
+        this.sampleRate = sampleRate;
+        int n = 2;
+        while (n < sampleRate / binHz) n *= 2;
+        plan = RealFftPlan.of(n);
+        hop = n / 2;
+        window = new double[n];
+        for (int i = 0; i < n; i++) {
+            window[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / n); // Hann
+        }
+        frame = new double[n];
+        windowed = new double[n];
+        real = new double[n / 2 + 1];
+        imag = new double[n / 2 + 1];
+        level = new double[n / 2 + 1];
+        lowBin = (int) Math.ceil(lowHz * n / sampleRate);
+        highBin = (int) Math.floor(highHz * n / sampleRate);
+        sorted = new double[highBin - lowBin + 1];
+        sidebandBins = (int) Math.round(sidebandHz * n / sampleRate);
+        decay = Math.exp(-hop / (holdSeconds * sampleRate));
+        frameFill = 0;
+        frameIndex = 0;
+        int bankSize = 2;
+        while (bankSize < sampleRate / channelSpacingHz) bankSize *= 2;
+        final int decimation = (int) Math.max(1, Math.min(bankSize, Math.round(sampleRate / channelRate)));
+        channelizer = new PolyphaseChannelizer(sampleRate, bankSize, decimation, bandwidth, this::envelopeFrame);
+        envelopeRate = (int) Math.round(channelizer.getFrameRate());
+        lowChannel = channelizer.channel(lowHz);
+        final int nChannels = channelizer.channel(highHz) - lowChannel + 1;
+        final int blockEnvelopes = blockSize / decimation + 1;
+        final int historyEnvelopes = (int) (historySeconds * envelopeRate) + blockEnvelopes;
+        envelopes = new double[nChannels][blockEnvelopes];
+        histories = new RingBuffer[nChannels];
+        for (int c = 0; c < nChannels; c++) {
+            histories[c] = new RingBuffer(historyEnvelopes);
+        }
+        replay = new double[historyEnvelopes];
+        channels.clear();
+        candidates.clear();
+    }
+
+    /**
+     * Receives from the audio source until the source is finished, then closes all channels
+     *
+     * @param source audio source, it is started but not closed by this method
+     */
+    void receive(AudioSource source) throws Exception {
+        start(source.getSampleRate());
+        final double[] samples = new double[blockSize];
+        long nSamples = 0;
+        final long startNanos = System.nanoTime();
+        source.start();
+        int n;
+        while ((n = source.read(samples)) >= 0) {
+            process(samples, 0, n);
+            nSamples += n;
+        }
+        flush();
+        final double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        logger.log(Level.INFO, String.format("Skimmed %.1f s of audio in %.3f s, real-time factor %.1f",
+                nSamples / (double) sampleRate, elapsedSeconds,
+                elapsedSeconds > 0 ? nSamples / (double) sampleRate / elapsedSeconds : 0));
+    }
+
+    /**
+     * Decodes the samples by the open channels and looks for new carriers, the buffer is not modified
+     */
+    void process(double[] samples, int offset, int length) {
+        for (int done = 0; done < length; ) {
+            final int n = Math.min(blockSize, length - done);
+            processBlock(samples, offset + done, n);
+            done += n;
+        }
+    }
+
+    /**
+     * Closes all channels, the pending characters are emitted
+     */
+    void flush() {
+        for (Channel channel : channels) {
+            close(channel);
+        }
+        channels.clear();
+        candidates.clear();
+    }
+
+    /**
+     * @return frequencies of the open channels, Hz
+     */
+    double[] getChannelFrequencies() {
+        return channels.stream().mapToDouble(c -> c.decoder.getFrequency()).toArray();
+    }
+
+    private void processBlock(double[] samples, int offset, int length) {
+        nEnvelopes = 0;
+        channelizer.process(samples, offset, length);
+        if (nEnvelopes > 0) {
+            for (int c = 0; c < histories.length; c++) {
+                final RingBuffer history = histories[c];
+                if (history.getFreeSpace() < nEnvelopes) {
+                    history.discard(nEnvelopes - history.getFreeSpace());
+                }
+                history.write(envelopes[c], 0, nEnvelopes);
+            }
+            for (Channel channel : channels) {
+                channel.decoder.process(envelopes[channel.envelope], 0, nEnvelopes);
+            }
+        }
+        for (int i = 0; i < length; ) {
+            final int n = Math.min(length - i, frame.length - frameFill);
+            System.arraycopy(samples, offset + i, frame, frameFill, n);
+            frameFill += n;
+            i += n;
+            if (frameFill == frame.length) {
+                // the new channels replay the history up to the end of the block, the rest of the frame is in it
+                analyzeFrame();
+                System.arraycopy(frame, hop, frame, 0, frame.length - hop);
+                frameFill -= hop;
+            }
+        }
+    }
+
+    private void envelopeFrame(PolyphaseChannelizer channelizer) {
+        for (int c = 0; c < envelopes.length; c++) {
+            envelopes[c][nEnvelopes] = channelizer.getMagnitude(lowChannel + c);
+        }
+        nEnvelopes++;
+    }
+
+    private void analyzeFrame() {
+        frameIndex++;
+        for (int i = 0; i < frame.length; i++) {
+            windowed[i] = frame[i] * window[i];
+        }
+        plan.forward(windowed, real, imag);
+        for (int k = lowBin; k <= highBin; k++) {
+            level[k] = Math.max(real[k] * real[k] + imag[k] * imag[k], level[k] * decay);
+        }
+        System.arraycopy(level, lowBin, sorted, 0, sorted.length);
+        Arrays.sort(sorted);
+        final double floor = Math.max(sorted[sorted.length / 2], Double.MIN_NORMAL);
+        final double open = floor * Math.pow(10, openDb / 10);
+        final double keep = floor * Math.pow(10, closeDb / 10);
+
+        // close the silent channels
+        final long closeFrames = Math.round(closeSeconds * sampleRate / hop);
+        for (Iterator<Channel> it = channels.iterator(); it.hasNext(); ) {
+            final Channel channel = it.next();
+            if (peakLevel(channel.bin, 1) > keep) {
+                channel.lastActiveFrame = frameIndex;
+            } else if (frameIndex - channel.lastActiveFrame > closeFrames) {
+                close(channel);
+                it.remove();
+            }
+        }
+
+        // find the peaks and confirm the candidates
+        for (int k = Math.max(lowBin, 2); k <= Math.min(highBin, level.length - 3); k++) {
+            if (level[k] <= open || level[k] < peakLevel(k, 2)) continue;
+            if (isSideband(k)) continue;
+            final double freq = interpolatedFrequency(k);
+            if (freq < lowHz || freq > highHz || isNearChannel(freq)) continue;
+            Candidate candidate = null;
+            for (Candidate c : candidates) {
+                if (Math.abs(c.freq - freq) < minSpacingHz / 2) {
+                    candidate = c;
+                    break;
+                }
+            }
+            if (candidate == null) {
+                candidates.add(new Candidate(freq, k, frameIndex));
+            } else if (candidate.lastFrame != frameIndex) {
+                candidate.frames++;
+                candidate.freq = freq;
+                candidate.bin = k;
+                candidate.lastFrame = frameIndex;
+            }
+        }
+        for (Iterator<Candidate> it = candidates.iterator(); it.hasNext(); ) {
+            final Candidate candidate = it.next();
+            if (candidate.lastFrame != frameIndex) { // the peaks must be consecutive
+                it.remove();
+            } else if (candidate.frames >= confirmFrames && channels.size() < maxChannels
+                    && !isNearChannel(candidate.freq)) {
+                open(candidate);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the maximal level of the bins k-radius..k+radius
+     */
+    private double peakLevel(int k, int radius) {
+        double max = 0;
+        for (int j = Math.max(0, k - radius); j <= Math.min(level.length - 1, k + radius); j++) {
+            max = Math.max(max, level[j]);
+        }
+        return max;
+    }
+
+    /**
+     * @return true if the peak at bin k is weaker than the keying sidebands of a stronger neighbour
+     */
+    private boolean isSideband(int k) {
+        final double binWidth = sampleRate / (double) frame.length;
+        final double factor = Math.pow(10, sidebandDb / 10);
+        for (int j = Math.max(0, k - sidebandBins); j <= Math.min(level.length - 1, k + sidebandBins); j++) {
+            final double distance = Math.abs(j - k) * binWidth / 10;
+            if (distance > 1 && level[j] > level[k] * factor * distance * distance) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return frequency of the peak at bin k, refined by a parabola through the log levels of the neighbours
+     */
+    private double interpolatedFrequency(int k) {
+        final double a = Math.log(level[k - 1] + Double.MIN_NORMAL);
+        final double b = Math.log(level[k] + Double.MIN_NORMAL);
+        final double c = Math.log(level[k + 1] + Double.MIN_NORMAL);
+        final double denominator = a - 2 * b + c;
+        final double delta = denominator < 0 ? 0.5 * (a - c) / denominator : 0;
+        return (k + Math.max(-0.5, Math.min(0.5, delta))) * sampleRate / (double) frame.length;
+    }
+
+    private boolean isNearChannel(double freq) {
+        for (Channel channel : channels) {
+            if (Math.abs(channel.decoder.getFrequency() - freq) < minSpacingHz) return true;
+        }
+        return false;
+    }
+
+    private void open(Candidate candidate) {
+        final double freq = candidate.freq;
+        final ToneDecoder decoder = new ToneDecoder(envelopeRate, freq, text -> listener.text(freq, text));
+        listener.opened(freq);
+        final int envelope = channelizer.channel(freq) - lowChannel;
+        final RingBuffer history = histories[envelope];
+        final int n = history.getSize();
+        history.copyTo(replay, 0, n);
+        decoder.process(replay, 0, n);
+        channels.add(new Channel(decoder, candidate.bin, envelope, frameIndex));
+    }
+
+    private void close(Channel channel) {
+        channel.decoder.flush();
+        listener.closed(channel.decoder.getFrequency());
+    }
+
+    /**
+     * @return listener writing a line per decoded word: the frequency and the word
+     */
+    static Listener lines(Consumer<CharSequence> out) {
+        return new Listener() {
+            private final Map<Double, StringBuilder> words = new HashMap<>();
+
+            @Override
+            public void text(double freq, CharSequence text) {
+                final StringBuilder word = words.computeIfAbsent(freq, f -> new StringBuilder());
+                for (int i = 0; i < text.length(); i++) {
+                    final char c = text.charAt(i);
+                    if (c != ' ') {
+                        word.append(c);
+                    } else {
+                        writeWord(freq, word);
+                    }
+                }
+            }
+
+            @Override
+            public void closed(double freq) {
+                final StringBuilder word = words.remove(freq);
+                if (word != null) writeWord(freq, word);
+            }
+
+            private void writeWord(double freq, StringBuilder word) {
+                if (word.isEmpty()) return;
+                out.accept(String.format(Locale.ROOT, "%7.1f Hz  %s%n", freq, word));
+                word.setLength(0);
+            }
+        };
+    }
+}
@@ -0,0 +1,163 @@
+package igivc.morse;
+
+/**
+ * Sliding DFT of one bin: the magnitude of the latest {@code windowWidth} samples is updated
+ * in constant time for every incoming sample, the result is the same as {@link Goertzel} with shift == 1.
+ * <p>
+ * The accumulator A[j] = sum(x[m] * exp(-2*pi*i*j*m/N)) over the window is updated with
+ * (x[n] - x[n - N]) * exp(-2*pi*i*j*n/N), twiddles are taken from a table, so there is no
+ * recursive rotation and the rounding error grows only with the number of additions.
+ * The accumulators are recalculated from the history buffer every {@code reanchorInterval} samples
+ * to keep the error bounded.
+ * <p>
+ * The Blackman-Harris window is applied in the frequency domain: it is a sum of cosines,
+ * so the windowed bin is a weighted sum of the bins k-3..k+3.
+ */
+class SlidingGoertzel {
+    private static final int REANCHOR_WINDOWS = 16; // default re-anchoring period in windows
+    private final int windowWidth;
+    private final double[] history; // x[m] is stored at m mod N
+    private final double[] cos, sin; // cos/sin(2*pi*i/N)
+    private final double[] weights; // window coefficient per bin
+    private final int[] binStep; // (k + l) mod N
+    private final int[] rotationStep; // l mod N
+    private final int[] binPhase; // (k + l) * n mod N
+    private final int[] rotationPhase; // l * n mod N
+    private final double[] re, im; // accumulators per bin
+    private final int reanchorInterval;
+    private int pos = 0; // n mod N
+    private int sinceReanchor = 0;
+    private long signalPosition = 0;
+    private double magnitudeSquared;
+
+    SlidingGoertzel(int k, int windowWidth, boolean useBlackmanHarrisWindow) {
+        this(k, windowWidth, useBlackmanHarrisWindow, REANCHOR_WINDOWS * windowWidth);
+    }
+
+    /**
+     * @param k                       bin index, frequency = k * sampleRate / windowWidth
+     * @param windowWidth             window length in samples
+     * @param useBlackmanHarrisWindow apply the Blackman-Harris window, otherwise the rectangular one
+     * @param reanchorInterval        recalculate the accumulators every ... samples
+     */
+    SlidingGoertzel(int k, int windowWidth, boolean useBlackmanHarrisWindow, int reanchorInterval) {
+        if (windowWidth <= 0) throw new IllegalArgumentException("windowWidth must be positive");
+        if (reanchorInterval <= 0) throw new IllegalArgumentException("reanchorInterval must be positive");
+        this.windowWidth = windowWidth;
+        this.reanchorInterval = reanchorInterval;
+        this.history = new double[windowWidth];
+        this.cos = new double[windowWidth];
+        this.sin = new double[windowWidth];
+        for (int i = 0; i < windowWidth; i++) {
+            double p = 2.0 * Math.PI * i / windowWidth;
+            cos[i] = Math.cos(p);
+            sin[i] = Math.sin(p);
+        }
+        // window w[m] = sum(c[l] * exp(2*pi*i*l*m/N)) -> X_w[k] = sum(c[l] * X[k + l])
+        final double[] c;
+        if (useBlackmanHarrisWindow) {
+            final double[] a = Goertzel.BLACKMAN_HARRIS;
+            c = new double[]{-a[3] / 2, a[2] / 2, -a[1] / 2, a[0], -a[1] / 2, a[2] / 2, -a[3] / 2};
+        } else {
+            c = new double[]{1.0};
+        }
+        final int halfWidth = c.length / 2;
+        weights = c;
+        binStep = new int[c.length];
+        rotationStep = new int[c.length];
+        for (int b = 0; b < c.length; b++) {
+            int l = b - halfWidth;
+            binStep[b] = Math.floorMod(k + l, windowWidth);
+            rotationStep[b] = Math.floorMod(l, windowWidth);
+        }
+        binPhase = new int[c.length];
+        rotationPhase = new int[c.length];
+        re = new double[c.length];
+        im = new double[c.length];
+    }
+
+    /**
+     * Process one sample
+     *
+     * @return magnitude of the latest window, 0 until the first window is filled
+     */
+    double process(double sample) {
+        final int n = windowWidth;
+        final double d = sample - history[pos];
+        history[pos] = sample;
+        for (int b = 0; b < weights.length; b++) {
+            int p = binPhase[b];
+            re[b] += d * cos[p];
+            im[b] -= d * sin[p];
+            p += binStep[b];
+            binPhase[b] = p >= n ? p - n : p;
+            int q = rotationPhase[b] + rotationStep[b];
+            rotationPhase[b] = q >= n ? q - n : q;
+        }
+        if (++pos == n) pos = 0;
+        signalPosition++;
+        if (++sinceReanchor >= reanchorInterval) {
+            reanchor();
+        }
+        if (signalPosition < n) {
+            return 0;
+        }
+        // the window starts at s = n - N + 1, and s mod N == pos;
+        // bin k + l is rotated by exp(2*pi*i*l*s/N) to the phase of the bin k
+        double xr = 0, xi = 0;
+        for (int b = 0; b < weights.length; b++) {
+            final int q = rotationPhase[b];
+            final double w = weights[b];
+            xr += w * (re[b] * cos[q] - im[b] * sin[q]);
+            xi += w * (re[b] * sin[q] + im[b] * cos[q]);
+        }
+        magnitudeSquared = xr * xr + xi * xi;
+        return Math.sqrt(magnitudeSquared);
+    }
+
+    /**
+     * Process samples, {@code magnitudes[i]} receives the magnitude after {@code samples[i]}
+     */
+    void process(double[] samples, double[] magnitudes) {
+        if (magnitudes.length < samples.length) throw new IllegalArgumentException("magnitudes is too short");
+        for (int i = 0; i < samples.length; i++) {
+            magnitudes[i] = process(samples[i]);
+        }
+    }
+
+    double getMagnitude() {
+        return Math.sqrt(magnitudeSquared);
+    }
+
+    double getMagnitudeSquared() {
+        return magnitudeSquared;
+    }
+
+    /**
+     * @return number of processed samples
+     */
+    long getSignalPosition() {
+        return signalPosition;
+    }
+
+    /**
+     * Recalculates the accumulators directly from the history, the phase of x[m] is (j * m) mod N
+     */
+    private void reanchor() {
+        sinceReanchor = 0;
+        final int n = windowWidth;
+        for (int b = 0; b < weights.length; b++) {
+            final int step = binStep[b];
+            double sumRe = 0, sumIm = 0;
+            int p = 0;
+            for (int i = 0; i < n; i++) {
+                sumRe += history[i] * cos[p];
+                sumIm -= history[i] * sin[p];
+                p += step;
+                if (p >= n) p -= n;
+            }
+            re[b] = sumRe;
+            im[b] = sumIm;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package igivc.morse;
+
+/**
+ * Exact percentile over a sliding window of the latest samples.
+ * <p>
+ * The window is kept as a ring of slots, every slot lives in one of two indexed heaps:
+ * a max-heap with the k+1 smallest values and a min-heap with the rest,
+ * where k = floor(p * (capacity - 1)). The top of the max-heap is the percentile.
+ * When the window is full a new sample overwrites the oldest slot in place,
+ * so the heap sizes never change and a single swap of the tops restores the order.
+ * <p>
+ * Cost is O(log n) per sample, O(1) per query, no allocation after construction.
+ */
+final class SlidingPercentile {
+    private final double[] values; // slot -> value, slots are used as a ring
+    private final int[] low;       // max-heap of slots (k + 1 smallest values)
+    private final int[] high;      // min-heap of slots (the rest)
+    private final int[] position;  // slot -> index in its heap, ~index for the high heap
+    private final int lowCapacity;
+    private int lowSize = 0, highSize = 0;
+    private int oldest = 0, size = 0;
+
+    /**
+     * @param capacity   window length in samples
+     * @param percentile 0..1, the same rank as {@code sorted[(int) Math.floor(percentile * (capacity - 1))]}
+     */
+    public SlidingPercentile(int capacity, double percentile) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        if (percentile < 0 || percentile > 1) throw new IllegalArgumentException("percentile must be in 0..1");
+        values = new double[capacity];
+        position = new int[capacity];
+        lowCapacity = (int) Math.floor(percentile * (capacity - 1)) + 1;
+        low = new int[lowCapacity + 1]; // one spare entry while inserting
+        high = new int[capacity - lowCapacity];
+    }
+
+    /**
+     * Adds the sample to the window, the oldest sample is dropped if the window is full.
+     */
+    public void add(double x) {
+        if (size < values.length) {
+            final int slot = (oldest + size) % values.length;
+            size++;
+            values[slot] = x;
+            insert(slot);
+        } else {
+            final int slot = oldest;
+            oldest = (oldest + 1) % values.length;
+            replace(slot, x);
+        }
+    }
+
+    /**
+     * @return the percentile of the samples in the window, the window must be full
+     */
+    public double get() {
+        if (!isFull()) {
+            throw new IllegalStateException("Window is not full");
+        }
+        return values[low[0]];
+    }
+
+    /**
+     * @param index 0 is the oldest sample in the window
+     * @return sample value
+     */
+    public double valueAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index");
+        }
+        return values[(oldest + index) % values.length];
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return values.length;
+    }
+
+    public boolean isFull() {
+        return size == values.length;
+    }
+
+    public void clear() {
+        lowSize = highSize = 0;
+        oldest = size = 0;
+    }
+
+    private void insert(int slot) {
+        position[slot] = lowSize;
+        low[lowSize++] = slot;
+        lowSiftUp(lowSize - 1);
+        if (lowSize > lowCapacity) {
+            // move the largest of the low values to the high heap
+            final int top = low[0];
+            low[0] = low[--lowSize];
+            position[low[0]] = 0;
+            lowSiftDown(0);
+            position[top] = ~highSize;
+            high[highSize++] = top;
+            highSiftUp(highSize - 1);
+        } else {
+            swapTopsIfNeeded();
+        }
+    }
+
+    private void replace(int slot, double x) {
+        final double old = values[slot];
+        values[slot] = x;
+        final int pos = position[slot];
+        if (pos >= 0) {
+            if (x > old) lowSiftUp(pos); else lowSiftDown(pos);
+        } else {
+            if (x < old) highSiftUp(~pos); else highSiftDown(~pos);
+        }
+        swapTopsIfNeeded();
+    }
+
+    private void swapTopsIfNeeded() {
+        if (highSize == 0 || values[low[0]] <= values[high[0]]) return;
+        final int l = low[0];
+        final int h = high[0];
+        low[0] = h;
+        position[h] = 0;
+        high[0] = l;
+        position[l] = ~0;
+        lowSiftDown(0);
+        highSiftDown(0);
+    }
+
+    private void lowSiftUp(int i) {
+        final int slot = low[i];
+        final double v = values[slot];
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (values[low[parent]] >= v) break;
+            low[i] = low[parent];
+            position[low[i]] = i;
+            i = parent;
+        }
+        low[i] = slot;
+        position[slot] = i;
+    }
+
+    private void lowSiftDown(int i) {
+        final int slot = low[i];
+        final double v = values[slot];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= lowSize) break;
+            if (child + 1 < lowSize && values[low[child + 1]] > values[low[child]]) child++;
+            if (values[low[child]] <= v) break;
+            low[i] = low[child];
+            position[low[i]] = i;
+            i = child;
+        }
+        low[i] = slot;
+        position[slot] = i;
+    }
+
+    private void highSiftUp(int i) {
+        final int slot = high[i];
+        final double v = values[slot];
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (values[high[parent]] <= v) break;
+            high[i] = high[parent];
+            position[high[i]] = ~i;
+            i = parent;
+        }
+        high[i] = slot;
+        position[slot] = ~i;
+    }
+
+    private void highSiftDown(int i) {
+        final int slot = high[i];
+        final double v = values[slot];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= highSize) break;
+            if (child + 1 < highSize && values[high[child + 1]] < values[high[child]]) child++;
+            if (values[high[child]] >= v) break;
+            high[i] = high[child];
+            position[high[i]] = ~i;
+            i = child;
+        }
+        high[i] = slot;
+        position[slot] = ~i;
+    }
+}
@@ -1,91 +1,187 @@
 package igivc.morse;
 
-import javax.sound.sampled.*;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ShortBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-class SoundPlayer {
+/**
+ * Plays messages to a long-lived {@link AudioSink}, the sound card by default.
+ * <p>
+ * Messages are put to a bounded queue and written to the sink by a dedicated writer thread,
+ * so the caller never blocks and back-to-back messages are played without gaps and without reopening the line.
+ * The sink is flushed when the queue is empty and closed by {@link #close}.
+ */
+class SoundPlayer implements AutoCloseable {
+    /**
+     * Source of 16-bit samples, for example {@link MorseSynthesizer#read(ShortBuffer)}
+     */
+    @FunctionalInterface
+    interface SignalSource {
+        /**
+         * Fills the remaining space of the buffer
+         *
+         * @return number of samples, -1 at the end of the message
+         */
+        int read(ShortBuffer buffer);
+    }
 
-    private final int sampleRate;
-    // clip for playing the sound
-    private Clip clip;
+    private record Message(SignalSource source, CompletableFuture<Void> future) {
+    }
+
+    private static final int queueCapacity = 16; // messages
+    private static final Message stop = new Message(null, null);
+    private final AudioSink sink;
+    private final BlockingQueue<Message> queue = new ArrayBlockingQueue<>(queueCapacity);
+    private final short[] block; // written to the sink at once
+    private Thread writerThread;
+    private volatile boolean closed = false;
     private final Logger logger = Logger.getLogger(SoundPlayer.class.getSimpleName());
 
+    /**
+     * @param sink the sink, it is closed by {@link #close}
+     */
+    SoundPlayer(AudioSink sink) {
+        this.sink = sink;
+        // small blocks keep the latency low, large blocks make the rendering to files faster
+        this.block = new short[sink.isRealTime() ? Math.max(1, sink.getSampleRate() / 50) : 8192];
+    }
+
+    /**
+     * Plays to the sound card
+     */
     SoundPlayer(int sampleRate) {
-        this.sampleRate = sampleRate;
+        this(new LineSink(sampleRate));
+    }
+
+    int getSampleRate() {
+        return sink.getSampleRate();
     }
 
     /**
-     * Play the data via audio system and wait for the clip to stop
+     * Queues the message, it is played after the previous ones
      *
-     * @param data the data to transmit
-     * @throws Exception when Line unavailable or I/O error
+     * @param source the message
+     * @return completed when the message is played, completed exceptionally if the sink fails;
+     * cancel it to skip the message
      */
-    void playData(byte[] data) throws Exception {
-        try {
-            if (data == null || data.length == 0)
-                return;
-            // if the clip is not null, stop and close it
-            if (clip != null) {
-                clip.stop();
-                clip.close();
+    CompletableFuture<Void> submit(SignalSource source) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        synchronized (queue) {
+            if (closed) {
+                future.completeExceptionally(new RejectedExecutionException("Player is closed"));
+                return future;
+            }
+            if (!queue.offer(new Message(source, future))) {
+                future.completeExceptionally(new RejectedExecutionException("Queue is full"));
+                return future;
+            }
+            if (writerThread == null) {
+                writerThread = new Thread(this::writeMessages, "SoundPlayer");
+                writerThread.setDaemon(true);
+                writerThread.start();
             }
+        }
+        return future;
+    }
 
-            // get the clip
-            clip = AudioSystem.getClip();
+    /**
+     * Queues the synthesizer output
+     */
+    CompletableFuture<Void> submit(MorseSynthesizer synthesizer) {
+        return submit((ShortBuffer buffer) -> synthesizer.read(buffer));
+    }
 
-            // object for synchronization
-            Object playSync = new Object();
+    /**
+     * Play the synthesizer output and wait for the end of the playback.
+     * The playback starts after the first block is rendered.
+     *
+     * @param synthesizer the signal source
+     * @throws Exception when the sink fails
+     */
+    void playStream(MorseSynthesizer synthesizer) throws Exception {
+        try {
+            submit(synthesizer).join();
+        } catch (RuntimeException e) {
+            throw new Exception(e.getCause() != null ? e.getCause() : e);
+        }
+    }
 
-            // listener for the line event
-            LineListener listener = event -> {
-                // if the event is a stop event
-                if (event.getType() == LineEvent.Type.STOP) {
-                    // stop and close the clip
-                    clip.stop();
-                    clip.close();
-                    clip = null;
-                    logger.log(Level.INFO, "Data has been transmitted.");
-                    // notify all the threads that are waiting for the clip to stop
-                    synchronized (playSync) {
-                        playSync.notify();
-                    }
+    /**
+     * Writer thread: plays the queued messages until the player is closed
+     */
+    private void writeMessages() {
+        try {
+            while (true) {
+                final Message message = queue.take();
+                if (message == stop) break;
+                if (message.future.isDone()) continue; // cancelled
+                try {
+                    playMessage(message);
+                    message.future.complete(null);
+                } catch (IOException | RuntimeException e) {
+                    logger.log(Level.SEVERE, "Can't play sound", e);
+                    message.future.completeExceptionally(e);
                 }
-            };
-            // add the listener to the clip
-            clip.addLineListener(listener);
-
-            // create the audio format
-            AudioFormat af = new AudioFormat(
-                    sampleRate, // sample rate
-                    8, // bits per sample
-                    1, // channels
-                    true, // signed
-                    false); // big endian
-
-            // create the audio input stream
-            AudioInputStream ais = new AudioInputStream(
-                    new ByteArrayInputStream(data), // input stream
-                    af, // audio format
-                    data.length); // length of the output data
-
-            // open the clip
-            clip.open(ais);
-            // log the start of the data transmitting
-            logger.log(Level.INFO, "Start data transmitting...");
-            // start the clip
-            clip.start();
-            // wait for the clip to stop
-            synchronized (playSync) {
-                // wait for the clip to stop
-                playSync.wait();
             }
         } catch (InterruptedException e) {
             logger.log(Level.WARNING, e.toString());
-        } catch (LineUnavailableException | IOException e) {
-            throw new Exception(e);
+        } finally {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Can't close the sink", e);
+            }
+            // fail the messages left after stop
+            Message message;
+            while ((message = queue.poll()) != null) {
+                if (message != stop) {
+                    message.future.completeExceptionally(new RejectedExecutionException("Player is closed"));
+                }
+            }
+        }
+    }
+
+    private void playMessage(Message message) throws IOException {
+        final ShortBuffer buffer = ShortBuffer.wrap(block);
+        int n;
+        while (!message.future.isDone() && (n = message.source.read(buffer.clear())) > 0) {
+            sink.write(block, 0, n);
+        }
+        if (queue.isEmpty()) {
+            sink.flush(); // wait for the end of the sound if there is nothing to play after the message
+        }
+    }
+
+    /**
+     * Plays the queued messages and closes the sink.
+     * If the calling thread is interrupted, the writer thread is interrupted too: it closes the sink
+     * and fails the queued messages; the interrupt status is kept.
+     */
+    @Override
+    public void close() throws IOException {
+        final Thread thread;
+        synchronized (queue) {
+            if (closed) return;
+            closed = true;
+            thread = writerThread;
+        }
+        if (thread == null) {
+            sink.close();
+            return;
+        }
+        try {
+            // outside the lock: submit() is not stalled while the queue is full,
+            // it sees closed and rejects the message
+            queue.put(stop);
+            thread.join();
+        } catch (InterruptedException e) {
+            thread.interrupt();
+            Thread.currentThread().interrupt();
         }
     }
 }
@@ -3,26 +3,45 @@ package igivc.morse;
 import javax.sound.sampled.*;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
-class SoundRecorder {
+/**
+ * Sound card audio source. The capture thread converts the samples directly into the preallocated blocks
+ * of a lock-free {@link SampleBlockQueue}, the DSP thread reads them by {@link #read(double[])}.
+ * If the DSP thread falls behind, the queue applies its overrun policy, see {@link #getOverruns()}.
+ */
+class SoundRecorder implements AudioSource {
     public final int sampleRate; // samples per second
 
-    private static final Logger logger = Logger.getLogger(SoundRecorder.class.getSimpleName());
-    private final Queue<double[]> audioQueue = new LinkedList<>();
+    private static final int blockSize = 1024; // samples captured at once
+    private static final int queueCapacity = 32; // blocks, 4 seconds at 8000 Hz
+    private final SampleBlockQueue audioQueue;
 
     private Thread thrReadAudio;
     private TargetDataLine targetDataLine;
     private final AtomicBoolean canContinue = new AtomicBoolean(true);
 
     public SoundRecorder(int sampleRate) {
+        this(sampleRate, SampleBlockQueue.OverrunPolicy.DropOldest);
+    }
+
+    /**
+     * @param sampleRate samples per second
+     * @param policy     what to do when the DSP thread falls behind and the queue is full
+     */
+    public SoundRecorder(int sampleRate, SampleBlockQueue.OverrunPolicy policy) {
         this.sampleRate = sampleRate;
+        this.audioQueue = new SampleBlockQueue(queueCapacity, blockSize, policy);
     }
 
-    void start() {
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public void start() {
         try {
             AudioFormat format = new AudioFormat(
                     sampleRate,
@@ -38,18 +57,15 @@ class SoundRecorder {
             thrReadAudio = new Thread(() -> {
                 canContinue.set(true);
                 targetDataLine.start();
-                byte[] data = new byte[targetDataLine.getBufferSize()];
+                byte[] data = new byte[2 * blockSize];
                 while (canContinue.get() && !Thread.interrupted()) {
                     int nBytesRead = targetDataLine.read(data, 0, data.length);
                     if (nBytesRead > 0) {
-                        double[] readData = bytesToDoublesBigEndian(data, nBytesRead);
-                        synchronized (audioQueue) {
-                            audioQueue.add(readData);
-                            audioQueue.notify();
-                        }
+                        final double[] block = audioQueue.beginWrite();
+                        audioQueue.endWrite(bytesToDoublesBigEndian(data, nBytesRead, block));
                     }
                 }
-            });
+            }, "SoundRecorder");
 
             thrReadAudio.start();
 
@@ -58,9 +74,11 @@ class SoundRecorder {
         }
     }
 
-    private static double[] bytesToDoublesBigEndian(byte[] data, int nBytesRead) {
+    /**
+     * @return number of samples written to {@code out}
+     */
+    private static int bytesToDoublesBigEndian(byte[] data, int nBytesRead, double[] out) {
         final int n = nBytesRead / 2;
-        final double[] out = new double[n];
 
         int j = 0;
         for (int i = 0; i < n; i++) {
@@ -70,7 +88,7 @@ class SoundRecorder {
             final short sample = (short) ((hi << 8) | lo);
             out[i] = sample / 32768.0; // normalization
         }
-        return out;
+        return n;
     }
 
 
@@ -78,6 +96,7 @@ class SoundRecorder {
         try {
             if (targetDataLine != null) {
                 canContinue.set(false);
+                audioQueue.close();
                 thrReadAudio.join();
                 targetDataLine.close();
                 targetDataLine = null;
@@ -87,23 +106,51 @@ class SoundRecorder {
         }
     }
 
+    /**
+     * Returns the next captured block, allocates a new array, use {@link #read(double[])} to avoid it
+     *
+     * @return the samples, empty if the recorder is finished
+     */
     public double[] get() {
-        synchronized (audioQueue) {
-            while(canContinue.get()) {
-                var readData = audioQueue.poll();
-                if (readData != null) {
-                    return readData;
-                }
-                try {
-                    audioQueue.wait();
-                } catch (InterruptedException e) {
-                    canContinue.set(false);
-                    logger.log(Level.WARNING, e.toString());
-                    break;
-                }
-            }
-            return new double[0]; // indicate that recorder is finished/interrupted
-        }
+        final double[] buffer = new double[blockSize];
+        final int n = audioQueue.read(buffer);
+        return n < 0 ? new double[0] : Arrays.copyOf(buffer, n); // empty array indicates that recorder is finished
+    }
+
+    @Override
+    public int read(double[] buffer) {
+        return audioQueue.read(buffer);
+    }
+
+    /**
+     * @return number of captured blocks lost because the DSP thread did not read them in time
+     */
+    long getOverruns() {
+        return audioQueue.getOverruns();
+    }
+
+    /**
+     * @return number of captured blocks waiting for the DSP thread
+     */
+    int getQueueDepth() {
+        return audioQueue.getDepth();
+    }
+
+    /**
+     * @return the maximal number of captured blocks waiting for the DSP thread
+     */
+    int getMaxQueueDepth() {
+        return audioQueue.getMaxDepth();
+    }
+
+    @Override
+    public boolean isRealTime() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        stop();
     }
 
     public boolean isRunning() {
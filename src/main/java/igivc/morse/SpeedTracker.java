@@ -0,0 +1,112 @@
+package igivc.morse;
+
+import java.util.Arrays;
+
+/**
+ * Online Morse speed estimator: two-cluster streaming k-means over the durations of tone elements.
+ * <p>
+ * The dot and dash clusters are initialized from the 2nd shortest and the 2nd longest of the latest
+ * {@code initElements} elements once their ratio looks like dash/dot (the only sort is done before initialization),
+ * then every element is assigned to the nearest cluster (the boundary is the geometric mean of the centers)
+ * and moves its center by an exponential moving average, so the estimate follows speed changes.
+ * If the dash/dot ratio leaves the 2..4.5 range (the speed changed a lot and one cluster gets no elements),
+ * the stale center is re-derived from the fresh one.
+ * After initialization every update is O(1) and allocates nothing.
+ */
+final class SpeedTracker {
+    private static final double alpha = 0.2; // EMA factor of the cluster centers
+    private static final double minRatio = 2, maxRatio = 4.5; // dash/dot ratio range
+    private static final int initElements = 12; // elements needed for initialization
+    private final int sampleRate;
+    private double dot, dash; // cluster centers, samples
+    private double dotError, dashError; // EMA of the squared relative deviation from the center
+    private final int[] initDurations = new int[initElements]; // ring of the latest elements before initialization
+    private final int[] sortedDurations = new int[initElements];
+    private int nElements = 0;
+    private boolean initialized = false;
+    private boolean dotSeen, dashSeen;
+
+    SpeedTracker(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Accepts the duration of a tone element (dot or dash)
+     */
+    void accept(int durationInSamples) {
+        if (durationInSamples <= 0) return;
+        nElements++;
+        if (!initialized) {
+            initDurations[(nElements - 1) % initElements] = durationInSamples;
+            if (nElements >= initElements) {
+                initialize();
+            }
+            return;
+        }
+        final double x = durationInSamples;
+        if (x * x < dot * dash) { // closer to dot in log scale
+            final double e = (x - dot) / dot;
+            dotError += alpha * (e * e - dotError);
+            dot += alpha * (x - dot);
+            dotSeen = true;
+            if (dash < minRatio * dot || dash > maxRatio * dot) dash = 3 * dot;
+        } else {
+            final double e = (x - dash) / dash;
+            dashError += alpha * (e * e - dashError);
+            dash += alpha * (x - dash);
+            dashSeen = true;
+            if (dash < minRatio * dot || dash > maxRatio * dot) dot = dash / 3;
+        }
+    }
+
+    private void initialize() {
+        System.arraycopy(initDurations, 0, sortedDurations, 0, initElements);
+        Arrays.sort(sortedDurations);
+        // the 2nd shortest and the 2nd longest, a single glitch on either side is ignored
+        final int shortest = sortedDurations[1];
+        final int longest = sortedDurations[initElements - 2];
+        final double ratio = (double) longest / shortest;
+        if (ratio > 2.5 && ratio < 3.5) { // found dashes and dots?
+            dot = shortest;
+            dash = longest;
+            initialized = true;
+        }
+    }
+
+    /**
+     * @return true if the clusters are initialized
+     */
+    boolean isInitialized() {
+        return initialized;
+    }
+
+    /**
+     * @return dot duration estimate in samples, 0 if not initialized
+     */
+    double getDotDurationInSamples() {
+        return initialized ? (dot + dash / 3) / 2 : 0;
+    }
+
+    /**
+     * @return speed estimate, words per minute (PARIS standard: dot = 1.2 / WPM seconds), 0 if not initialized
+     */
+    double getWordsPerMinute() {
+        return initialized ? 1.2 * sampleRate / getDotDurationInSamples() : 0;
+    }
+
+    /**
+     * @return 0..1, how well the elements form two clusters with the dash/dot ratio of 3
+     */
+    double getConfidence() {
+        if (!initialized || !dotSeen || !dashSeen) return 0;
+        final double ratioScore = Math.max(0, 1 - Math.abs(dash / dot - 3) / 1.5);
+        final double spreadScore = Math.max(0, 1 - Math.sqrt(Math.max(dotError, dashError)));
+        return ratioScore * spreadScore;
+    }
+
+    void reset() {
+        nElements = 0;
+        initialized = dotSeen = dashSeen = false;
+        dot = dash = dotError = dashError = 0;
+    }
+}
@@ -0,0 +1,56 @@
+package igivc.morse;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.function.Consumer;
+
+/**
+ * Destination of decoded text batches, see {@link DecodedTextSink}.
+ */
+interface TextOutput extends AutoCloseable {
+    /**
+     * Writes a batch of the decoded text
+     */
+    void write(String text) throws IOException;
+
+    /**
+     * Makes the written text visible (console) or durable (file)
+     */
+    default void flush() throws IOException {
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * @return output to the standard output, it is flushed but not closed
+     */
+    static TextOutput console() {
+        return stream(System.out);
+    }
+
+    /**
+     * @return output to the print stream, it is flushed but not closed
+     */
+    static TextOutput stream(PrintStream out) {
+        return new TextOutput() {
+            @Override
+            public void write(String text) {
+                out.print(text);
+            }
+
+            @Override
+            public void flush() {
+                out.flush();
+            }
+        };
+    }
+
+    /**
+     * @return output which passes the batches to the callback
+     */
+    static TextOutput callback(Consumer<String> callback) {
+        return callback::accept;
+    }
+}
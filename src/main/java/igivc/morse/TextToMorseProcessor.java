@@ -3,11 +3,8 @@ package igivc.morse;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -20,6 +17,7 @@ class TextToMorseProcessor {
      */
     private static final String MORSECODES = "morsecodes";
     private Map<Integer, String> morseCodes;
+    private MorseCodec codec;
 
     /**
      * Constructor
@@ -63,6 +61,7 @@ class TextToMorseProcessor {
                             // get the substring skipping the very first character (we count from 0)
                             s -> s.substring(1)));
             this.morseCodes = Collections.unmodifiableMap(map); // create an unmodifiable map
+            this.codec = new MorseCodec(morseCodes); // encoding tables
         }
     }
 
@@ -82,48 +81,35 @@ class TextToMorseProcessor {
      * @return the morse code string, for example: ".-|...|.-."
      */
     String textToMorse(String text) {
-        return text
-            // convert the text to uppercase
-            .toUpperCase()
-            // convert the text to a stream of characters
-            .chars()
-            // convert the stream of characters to a stream of strings
-            .mapToObj((c) -> {
-                if (c == ' ') { // if the character is a space
-                    return " "; // return a space
-                }
-                // get the morse code for the character
-                String code = morseCodes.get(c);
-                // return the morse code or a space if the code is not found (==null)
-                return code != null ? code : " ";
-            })
-            .collect(
-                Collector.<String, ArrayList<String>, String>of(
-                    // Supplier: Creates a new ArrayList
-                    () -> {
-                        // reserve space for strings
-                        return new ArrayList<String>(text.length());
-                    },
-                    // Accumulator: Adds strings to the list skipping duplicated spaces
-                    (list, s) -> {
-                        if (!s.equals(" ") || (!list.isEmpty() && !list.getLast().equals(" "))) {
-                            list.addLast(s);
-                        }
-                    },
-                    // Combiner: Combines two list (for parallel streams)
-                    (list1, list2) -> {
-                        list1.addAll(list2);
-                        return list1;
-                    },
-                    // Finisher: Joins the list elements into a single string
-                    acc -> {
-                        if (!acc.isEmpty()) {
-                            int to = acc.getLast().equals(" ") ? acc.size() - 1 : acc.size();
-                            return String.join("|", acc.subList(0, to));
-                        }
-                        return "";
-                    }
-                )
-            );
+        return codec.encode(text);
+    }
+
+    /**
+     * Convert text to the keying timeline for the transmitter
+     *
+     * @param text the text to convert
+     * @return the timeline of the morse code
+     */
+    KeyingTimeline textToTimeline(String text) {
+        return codec.toTimeline(text);
+    }
+
+    /**
+     * Convert morse code to text
+     *
+     * @param morse the morse code, for example: ".-|...|.-."
+     * @return the upper-case text, for example: "ASR"
+     */
+    String morseToText(String morse) {
+        return codec.decode(morse);
+    }
+
+    /**
+     * Get the bulk codec built from the Morse codes map
+     *
+     * @return the codec
+     */
+    MorseCodec getCodec() {
+        return codec;
     }
 }
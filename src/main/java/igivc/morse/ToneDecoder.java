@@ -0,0 +1,58 @@
+package igivc.morse;
+
+import java.util.function.Consumer;
+
+/**
+ * Lightweight decoder of one CW signal from its envelope: smoother, level classifier,
+ * debouncer, dot duration meter and Morse decoder, all streaming, without blocks and FFT.
+ * The envelope is usually a channel of {@link PolyphaseChannelizer}, so the decoder runs at the decimated
+ * rate of a few hundred Hz, not at the audio sample rate.
+ * The input is copied, so one buffer can be passed to many decoders.
+ */
+class ToneDecoder {
+    private static final int blockSize = 1024; // samples processed at once
+    private final double freq;
+    private final AttackReleaseSmoother smoother;
+    private final SignalLevelClassifier classifier;
+    private final Debouncer debouncer;
+    private final MorseDecoder decoder;
+    private final double[] work = new double[blockSize];
+
+    /**
+     * @param envelopeRate envelope samples per second
+     * @param freq         tone frequency, Hz, identifies the decoder
+     * @param consumer     decoded text, the sequence is reused after the call
+     */
+    ToneDecoder(int envelopeRate, double freq, Consumer<CharSequence> consumer) {
+        this.freq = freq;
+        smoother = new AttackReleaseSmoother(envelopeRate);
+        decoder = new MorseDecoder(consumer::accept);
+        debouncer = new Debouncer(new DotDurationMeter(decoder, envelopeRate), envelopeRate);
+        classifier = new SignalLevelClassifier(debouncer, envelopeRate);
+    }
+
+    double getFrequency() {
+        return freq;
+    }
+
+    /**
+     * Decodes the envelope samples, the buffer is not modified
+     */
+    void process(double[] envelope, int offset, int length) {
+        for (int done = 0; done < length; ) {
+            final int n = Math.min(blockSize, length - done);
+            System.arraycopy(envelope, offset + done, work, 0, n);
+            smoother.processBuffer(work, 0, n);
+            classifier.processBuffer(work, 0, n);
+            done += n;
+        }
+    }
+
+    /**
+     * Emits the pending elements and character, for example at the end of the audio
+     */
+    void flush() {
+        debouncer.flush();
+        decoder.flush();
+    }
+}
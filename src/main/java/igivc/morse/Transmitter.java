@@ -1,14 +1,12 @@
 package igivc.morse;
 
-import java.io.ByteArrayOutputStream;
-import java.util.function.IntConsumer;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Transmitter class for transmitting morse code to the audio system.
  */
-class Transmitter {
+class Transmitter implements AutoCloseable {
 
     private static final int SPEED = 20; // words per minute
     private static final int FREQ = 800; // Hertz
@@ -21,131 +19,50 @@ class Transmitter {
      * https://en.wikipedia.org/wiki/Morse_code
      */
     private static final float DOT_DURATION_MILLISECONDS = 1200.0f / SPEED;
-    private final Logger logger = Logger.getLogger(Transmitter.class.getSimpleName());
-
+    private final SoundPlayer player; // keeps the sink open between messages
 
     /**
-     * Generates sine wave samples and provides them to the consumer
-     *
-     * @param durationMilliseconds
-     * @param consumer
+     * Transmits to the sound card
      */
-    private static void generateSineWave(float durationMilliseconds, IntConsumer consumer) {
-        // get the number of samples
-        int len = getNumOfSamples(durationMilliseconds);
-        // align len to fit the wave period to avoid sound distortion at the end of the
-        // wave
-        len = len - (len % (SAMPLE_RATE / FREQ));
-        // calculate the phase delta for the sine wave
-        final double delta = 2 * Math.PI * FREQ / SAMPLE_RATE;
-        // initialize the angle
-        double angle = 0;
-        // generate the sine wave
-        for (int n = 0; n < len; n++) {
-            // calculate the value of the sine wave sample
-            consumer.accept((int) (Byte.MAX_VALUE * Math.sin(angle)));
-            // increment the angle
-            angle += delta;
-        }
+    Transmitter() {
+        this(new LineSink(SAMPLE_RATE));
     }
 
     /**
-     * Get the number of samples for a given duration
+     * Transmits to the sink, for example a {@link WaveFileSink} for headless rendering
      *
-     * @param durationMilliseconds the duration in milliseconds
-     * @return the number of samples
+     * @param sink the sink, it is closed by {@link #close()}
      */
-    private static int getNumOfSamples(float durationMilliseconds) {
-        return (int) Math.round(SAMPLE_RATE * durationMilliseconds / 1000.0);
+    Transmitter(AudioSink sink) {
+        this.player = new SoundPlayer(sink);
     }
 
     /**
-     * Generates a pause of the given duration
+     * Queue the morse encoded string for transmission, see {@link #transmit(KeyingTimeline)}
      *
-     * @param durationMilliseconds the duration in milliseconds
-     * @param consumer             the consumer to receive the samples
+     * @param morseEncoded the morse encoded string
+     * @return completed when the message is transmitted
      */
-    private static void generatePause(float durationMilliseconds, IntConsumer consumer) {
-        int len = getNumOfSamples(durationMilliseconds);
-        for (int i = 0; i < len; i++) {
-            consumer.accept(0);
-        }
+    CompletableFuture<Void> transmit(String morseEncoded) {
+        return transmit(KeyingTimeline.fromMorse(morseEncoded));
     }
 
     /**
-     * Generates the image of the Morse code for the given string which is a sequence of dots, dashes, pipes and spaces.
+     * Queue the keying timeline for transmission, the caller is not blocked.
+     * The messages are played back-to-back via the same audio line, the signal is rendered while playing.
      *
-     * @param morseEncoded the Morse encoded string
-     * @return the image of the Morse code for the given string
+     * @param timeline the keying timeline, see {@link TextToMorseProcessor#textToTimeline}
+     * @return completed when the message is transmitted, completed exceptionally if the sound can't be played
      */
-    private byte[] generateSignalImage(String morseEncoded) {
-        // convert Morse encoded string to byte array
-        return morseEncoded.chars() // convert to stream of characters(=ints)
-            .mapMulti(
-                (c, consumer) -> {
-                    switch (c) {
-                        case '.':
-                            // generate the dot wave and the space wave (zeroes)
-                            generateSineWave(DOT_DURATION_MILLISECONDS, consumer);
-                            generatePause(DOT_DURATION_MILLISECONDS, consumer);
-                            break;
-                        case '-':
-                            // generate the dash wave and the space wave (zeroes)
-                            generateSineWave(3 * DOT_DURATION_MILLISECONDS, consumer);
-                            generatePause(DOT_DURATION_MILLISECONDS, consumer);
-                            break;
-                        case '|':
-                            // generate the space (zeroes) 2 times (+1 spaceWave comes from the previous dot or dash)
-                            generatePause(2 * DOT_DURATION_MILLISECONDS, consumer);
-                            break;
-                        case ' ':
-                            // generate the long space (zeroes) 6 times (+1 spaceWave comes from the previous dot or dash)
-                            generatePause(6 * DOT_DURATION_MILLISECONDS, consumer);
-                            break;
-                        default:
-                            throw new IllegalArgumentException("Unsupported symbol: " + c);
-
-                    }
-                }
-            )
-            .collect(
-                // Supplier: Creates a new ByteArrayOutputStream
-                () -> {
-                    // the approximate buffer size
-                    final int approxBufferSize =
-                            (int) (4 * DOT_DURATION_MILLISECONDS * morseEncoded.length() * SAMPLE_RATE / 1000);
-                    return new ByteArrayOutputStream(approxBufferSize);
-                },
-                // Accumulator: Adds samples to the buffer
-                (buf, val) -> {
-                    buf.write(val);
-                },
-                // Combiner: Combines two buffers (for parallel streams)
-                (buf1, buf2) -> {
-                    buf1.writeBytes(buf2.toByteArray());
-                }
-            )
-            .toByteArray();
+    CompletableFuture<Void> transmit(KeyingTimeline timeline) {
+        return player.submit(new MorseSynthesizer(timeline, player.getSampleRate(), FREQ, DOT_DURATION_MILLISECONDS));
     }
 
     /**
-     * Transmit the data to the audio system and wait for the clip to stop
-     *
-     * @param morseEncoded the morse encoded string
+     * Transmit the queued messages and close the sink
      */
-    void transmit(String morseEncoded) {
-        try {
-            // transmit the data
-            SoundPlayer player = new SoundPlayer(SAMPLE_RATE);
-            player.playData(generateSignalImage(morseEncoded));
-        } catch (Exception e) {
-            // log the error
-            logger.log(Level.SEVERE, "Can't play sound", e);
-            // throw a runtime exception
-            throw new RuntimeException(e);
-        }
+    @Override
+    public void close() throws IOException {
+        player.close();
     }
-
-
-
 }
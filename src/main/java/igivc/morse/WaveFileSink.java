@@ -0,0 +1,63 @@
+package igivc.morse;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * WAVE file audio sink, mono signed 16-bit PCM. The samples are streamed to the file,
+ * the header is written with zero sizes first and the sizes are patched by {@link #close()}.
+ */
+class WaveFileSink extends PcmSink {
+    private static final int HEADER_LENGTH = 44;
+    private static final int RIFF_SIZE_OFFSET = 4;
+    private static final int DATA_SIZE_OFFSET = 40;
+    private final FileChannel channel;
+    private boolean closed = false;
+
+    private WaveFileSink(FileChannel channel, int sampleRate) throws IOException {
+        super(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), sampleRate);
+        this.channel = channel;
+        final ByteArrayOutputStream header = new ByteArrayOutputStream(HEADER_LENGTH);
+        new WaveHeader(WaveHeader.FORMAT_PCM, (short) 1, sampleRate, (short) 16, 0).write(header);
+        channel.write(ByteBuffer.wrap(header.toByteArray()));
+    }
+
+    /**
+     * Creates or truncates the file
+     */
+    static WaveFileSink open(Path path, int sampleRate) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            return new WaveFileSink(channel, sampleRate);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try (channel) {
+            flush();
+            final long dataSize = 2 * getSamplesWritten();
+            if (dataSize + HEADER_LENGTH - 8 > 0xFFFFFFFFL) {
+                throw new IOException("WAVE file is too large: " + dataSize + " bytes of samples");
+            }
+            final ByteBuffer size = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            size.putInt(0, (int) (dataSize + HEADER_LENGTH - 8));
+            channel.write(size, RIFF_SIZE_OFFSET);
+            size.putInt(0, (int) dataSize).rewind();
+            channel.write(size, DATA_SIZE_OFFSET);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package igivc.morse;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * WAVE file audio source, the header is parsed with {@link WaveHeader}.
+ * Only the PCM format is supported, 8-bit samples are unsigned, 16-bit samples are signed little-endian.
+ */
+class WaveFileSource extends PcmSource {
+    private final WaveHeader header;
+
+    public WaveFileSource(Path path) throws IOException {
+        this(new BufferedInputStream(Files.newInputStream(path)));
+    }
+
+    public WaveFileSource(InputStream in) throws IOException {
+        this(in, readHeader(in));
+    }
+
+    private WaveFileSource(InputStream in, WaveHeader header) {
+        // a zero data size is written by streaming encoders that do not know the length in advance
+        super(in, toAudioFormat(header), header.getNumBytes() == 0 ? -1 : Integer.toUnsignedLong(header.getNumBytes()));
+        this.header = header;
+    }
+
+    private static WaveHeader readHeader(InputStream in) throws IOException {
+        final WaveHeader header = new WaveHeader();
+        try {
+            header.read(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        if (header.getFormat() != WaveHeader.FORMAT_PCM) {
+            in.close();
+            throw new IOException("Unsupported WAVE format: " + header.getFormat());
+        }
+        return header;
+    }
+
+    private static AudioFormat toAudioFormat(WaveHeader header) {
+        final boolean signed = header.getBitsPerSample() > 8;
+        return new AudioFormat(header.getSampleRate(), header.getBitsPerSample(), header.getNumChannels(), signed, false);
+    }
+
+    WaveHeader getHeader() {
+        return header;
+    }
+}
@@ -0,0 +1,112 @@
+package igivc.morse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pre-rendered dot and dash waveforms, the synthesizer copies them instead of computing every sample.
+ * <p>
+ * A tone starts from zero phase and is aligned to whole periods (see {@link MorseSynthesizer}),
+ * the optional raised cosine rise and fall reduce key clicks. The templates of the same parameters
+ * are shared: they are cached by (sample rate, frequency, dot duration, bits, rise time) and never modified.
+ * The cache keeps the {@link #cacheCapacity} most recently used parameters, so generators of many random
+ * signals do not grow it without limit; a synthesizer keeps its templates, the eviction only affects new ones.
+ */
+final class WaveformTemplates {
+    private record Key(int sampleRate, double freq, double dotDurationMilliseconds, int bits,
+                       double riseMilliseconds) {
+    }
+
+    static final int cacheCapacity = 32;
+    private static final Map<Key, WaveformTemplates> cache = new LinkedHashMap<>(16, 0.75f, true) { // LRU
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, WaveformTemplates> eldest) {
+            return size() > cacheCapacity;
+        }
+    };
+    private final byte[][] bytes; // 8-bit templates by units, null if not cached
+    private final short[][] shorts; // 16-bit templates by units, null if not cached
+
+    private WaveformTemplates(Key key) {
+        final int maxUnits = KeyingTimeline.dashUnits;
+        bytes = key.bits == 8 ? new byte[maxUnits + 1][] : null;
+        shorts = key.bits == 16 ? new short[maxUnits + 1][] : null;
+        final ToneShaper shaper = new ToneShaper(key.sampleRate, key.freq, key.riseMilliseconds);
+        for (int units : new int[]{KeyingTimeline.dotUnits, KeyingTimeline.dashUnits}) {
+            final int length = MorseSynthesizer.toneLength(key.sampleRate, key.freq, key.dotDurationMilliseconds, units);
+            shaper.start(length);
+            if (bytes != null) {
+                bytes[units] = new byte[length];
+                for (int n = 0; n < length; n++) {
+                    bytes[units][n] = (byte) (Byte.MAX_VALUE * shaper.next());
+                }
+            } else {
+                shorts[units] = new short[length];
+                for (int n = 0; n < length; n++) {
+                    shorts[units][n] = (short) (Short.MAX_VALUE * shaper.next());
+                }
+            }
+        }
+    }
+
+    /**
+     * @param bits 8 or 16
+     * @return shared templates of the parameters
+     */
+    static WaveformTemplates of(int sampleRate, double freq, double dotDurationMilliseconds, int bits,
+                                double riseMilliseconds) {
+        if (bits != 8 && bits != 16) throw new IllegalArgumentException("bits");
+        final Key key = new Key(sampleRate, freq, dotDurationMilliseconds, bits, riseMilliseconds);
+        synchronized (cache) { // looked up once per synthesizer, the lock is not contended
+            return cache.computeIfAbsent(key, WaveformTemplates::new);
+        }
+    }
+
+    /**
+     * @return the 8-bit tone of the length in units, null if it is not cached
+     */
+    byte[] bytes(int units) {
+        return bytes != null && units < bytes.length ? bytes[units] : null;
+    }
+
+    /**
+     * @return the 16-bit tone of the length in units, null if it is not cached
+     */
+    short[] shorts(int units) {
+        return shorts != null && units < shorts.length ? shorts[units] : null;
+    }
+
+    /**
+     * Tone generator with raised cosine rise and fall, used for the templates and for the tones not cached
+     */
+    static final class ToneShaper {
+        private final SineOscillator oscillator;
+        private final int rampLength; // samples
+        private int length, position;
+
+        ToneShaper(int sampleRate, double freq, double riseMilliseconds) {
+            oscillator = new SineOscillator(2 * Math.PI * freq / sampleRate);
+            rampLength = (int) Math.round(sampleRate * riseMilliseconds / 1000.0);
+        }
+
+        /**
+         * Starts a tone of the length in samples from zero phase
+         */
+        void start(int length) {
+            this.length = length;
+            position = 0;
+            oscillator.reset();
+        }
+
+        /**
+         * @return the next sample of the tone, -1..1
+         */
+        double next() {
+            final double s = oscillator.next();
+            final int edge = Math.min(position, length - 1 - position); // distance to the nearest end
+            position++;
+            if (edge >= rampLength) return s;
+            return s * 0.5 * (1 - Math.cos(Math.PI * (edge + 0.5) / rampLength));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AudioSinkTest {
+
+    private static final double EPS = 1e-12;
+
+    @Test
+    public void testPcmSinkIsReadByPcmSource() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PcmSink sink = new PcmSink(out, 8000)) {
+            sink.write(new short[]{99, 16384, -16384, 32767, 99}, 1, 3);
+            assertEquals(3, sink.getSamplesWritten());
+        }
+        assertArrayEquals(new byte[]{0x00, 0x40, 0x00, (byte) 0xC0, (byte) 0xFF, 0x7F}, out.toByteArray());
+    }
+
+    @Test
+    public void testWaveFileSinkPatchesSizes(@TempDir Path dir) throws Exception {
+        final Path path = dir.resolve("test.wav");
+        try (WaveFileSink sink = WaveFileSink.open(path, 11025)) {
+            for (int i = 0; i < 10; i++) {
+                sink.write(new short[]{0, 16384, -16384}, 0, 3);
+            }
+        }
+        assertEquals(44 + 60, Files.size(path));
+        try (WaveFileSource source = new WaveFileSource(path)) {
+            assertEquals(11025, source.getSampleRate());
+            assertEquals(60, source.getHeader().getNumBytes());
+            double[] buffer = new double[100];
+            assertEquals(30, source.read(buffer));
+            assertEquals(0.5, buffer[1], EPS);
+            assertEquals(-0.5, buffer[29], EPS);
+        }
+    }
+
+    @Test
+    public void testTransmitterRendersHeadless(@TempDir Path dir) throws Exception {
+        final Path path = dir.resolve("paris.wav");
+        final TextToMorseProcessor mp = new TextToMorseProcessor();
+        CompletableFuture<Void> first, second;
+        try (Transmitter transmitter = new Transmitter(WaveFileSink.open(path, 8000))) {
+            first = transmitter.transmit(mp.textToTimeline("PARIS"));
+            second = transmitter.transmit(mp.textToMorse("PARIS"));
+        }
+        assertTrue(first.isDone() && !first.isCompletedExceptionally());
+        assertTrue(second.isDone() && !second.isCompletedExceptionally());
+        // 43 units of PARIS and a trailing element gap, 60 ms each
+        assertEquals(44 + 2 * 2 * 44 * 480, Files.size(path));
+    }
+
+    @Test
+    public void testPlayerQueuesMessagesBackToBack() throws Exception {
+        NullSink sink = new NullSink(8000);
+        KeyingTimeline timeline = KeyingTimeline.fromMorse(".-");
+        try (SoundPlayer player = new SoundPlayer(sink)) {
+            CompletableFuture<Void> last = null;
+            for (int i = 0; i < 5; i++) {
+                last = player.submit(new MorseSynthesizer(timeline, 8000, 800, 60));
+            }
+            last.get();
+            assertEquals(5 * 6 * 480, sink.getSamplesWritten());
+        }
+        SoundPlayer closed = new SoundPlayer(new NullSink(8000));
+        closed.close();
+        assertTrue(closed.submit(new MorseSynthesizer(timeline, 8000, 800, 60)).isCompletedExceptionally());
+    }
+}
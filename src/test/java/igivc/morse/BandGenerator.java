@@ -0,0 +1,273 @@
+package igivc.morse;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates a band with many simultaneous CW signals over Gaussian noise, for load testing of the decoders.
+ * <p>
+ * Every signal has its own frequency, speed, amplitude, start time, timing jitter and fading (QSB),
+ * the message is rendered by its own {@link MorseSynthesizer} and repeated after a pause.
+ * The signals are mixed block by block into a preallocated buffer, so the memory does not depend on the duration.
+ * The output is deterministic for the same signals and seed, the completed messages are recorded
+ * as the ground truth, see {@link #getTranscripts()}.
+ * <p>
+ * It is a test tool, not a part of the receiver. Usage, after {@code mvn test-compile}:
+ * {@code java -cp target/classes:target/test-classes igivc.morse.BandGenerator band.wav [signals] [seconds] [seed]},
+ * writes band.wav and the transcripts to band.txt.
+ */
+final class BandGenerator implements SoundPlayer.SignalSource {
+    /**
+     * @param text          the message
+     * @param freq          tone frequency, Hz
+     * @param wpm           speed, words per minute
+     * @param amplitude     tone amplitude, 0..1 of the full scale
+     * @param startSeconds  start of the first message
+     * @param repeatSeconds pause before the message is repeated, negative to send it once
+     * @param fadingHz      rate of the fading, 0 for a constant level
+     * @param fadingDepth   depth of the fading, 0..1: the level varies from 1 - depth to 1 of the amplitude
+     * @param jitter        standard deviation of the element and gap lengths, fraction of the length
+     */
+    record Signal(String text, double freq, int wpm, double amplitude, double startSeconds, double repeatSeconds,
+                  double fadingHz, double fadingDepth, double jitter) {
+    }
+
+    /**
+     * A message sent by a signal
+     *
+     * @param startSample the first sample of the message
+     * @param endSample   the sample after the message
+     */
+    record Transcript(double freq, int wpm, long startSample, long endSample, String text) {
+    }
+
+    private static final int blockSize = 1024; // samples mixed at once
+    private static final int fadingGrid = 256; // samples between the exact values of the fading gain
+    private static final double riseMilliseconds = 5; // no key clicks in the neighbour channels
+    private final int sampleRate;
+    private final double noiseRms;
+    private final long length;
+    private final Random noise;
+    private final Channel[] channels;
+    private final double[] mix = new double[blockSize];
+    private final short[] tone = new short[blockSize];
+    private final List<Transcript> transcripts = new ArrayList<>();
+    private long position = 0;
+
+    /**
+     * @param signals    the signals
+     * @param sampleRate samples per second
+     * @param noiseRms   RMS of the noise, 0..1 of the full scale
+     * @param length     number of samples to generate, negative for an endless stream
+     * @param seed       seed of the noise, the jitter and the fading phases
+     */
+    BandGenerator(List<Signal> signals, int sampleRate, double noiseRms, long length, long seed) {
+        if (sampleRate <= 0) throw new IllegalArgumentException("fs");
+        final TextToMorseProcessor processor = new TextToMorseProcessor();
+        final Random random = new Random(seed);
+        this.sampleRate = sampleRate;
+        this.noiseRms = noiseRms;
+        this.length = length;
+        this.noise = new Random(random.nextLong());
+        this.channels = new Channel[signals.size()];
+        for (int i = 0; i < channels.length; i++) {
+            final Signal signal = signals.get(i);
+            if (signal.freq() <= 0 || signal.freq() >= sampleRate / 2.0) throw new IllegalArgumentException("freq");
+            channels[i] = new Channel(signal, processor.textToTimeline(signal.text()), random.nextLong(),
+                    2 * Math.PI * random.nextDouble());
+        }
+    }
+
+    /**
+     * @return random signals: 12..35 WPM, amplitudes from -40 to -14 dB of the full scale, up to 0.3 Hz fading,
+     * starting in the first quarter of the duration and repeated after 1..5 seconds
+     */
+    static List<Signal> randomSignals(int count, double lowHz, double highHz, double seconds, long seed) {
+        final Random random = new Random(seed);
+        final List<Signal> signals = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            signals.add(new Signal(RandomText.words(20 + random.nextInt(40), random.nextLong()),
+                    lowHz + (highHz - lowHz) * random.nextDouble(),
+                    12 + random.nextInt(24),
+                    Math.pow(10, (-40 + 26 * random.nextDouble()) / 20),
+                    seconds / 4 * random.nextDouble(),
+                    1 + 4 * random.nextDouble(),
+                    0.3 * random.nextDouble(),
+                    0.9 * random.nextDouble(),
+                    0.1 * random.nextDouble()));
+        }
+        return signals;
+    }
+
+    int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return number of samples generated
+     */
+    long getPosition() {
+        return position;
+    }
+
+    /**
+     * @return the messages completed so far, in the order of their ends
+     */
+    List<Transcript> getTranscripts() {
+        return Collections.unmodifiableList(transcripts);
+    }
+
+    @Override
+    public int read(ShortBuffer buffer) {
+        if (length >= 0 && position >= length) return -1;
+        int total = 0;
+        while (buffer.hasRemaining() && (length < 0 || position < length)) {
+            int n = Math.min(buffer.remaining(), blockSize);
+            if (length >= 0) n = (int) Math.min(n, length - position);
+            mixBlock(n);
+            for (int i = 0; i < n; i++) {
+                final double x = mix[i] * Short.MAX_VALUE;
+                buffer.put((short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(x))));
+            }
+            position += n;
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * Writes the whole stream to the sink, the sink is not closed
+     */
+    void writeTo(AudioSink sink) throws IOException {
+        if (length < 0) throw new IllegalStateException("Endless stream");
+        final short[] block = new short[8192];
+        final ShortBuffer buffer = ShortBuffer.wrap(block);
+        int n;
+        while ((n = read(buffer.clear())) > 0) {
+            sink.write(block, 0, n);
+        }
+    }
+
+    /**
+     * Writes the transcripts: frequency, WPM, start and end in seconds, text; separated by tabs
+     */
+    void writeTranscripts(Writer writer) throws IOException {
+        for (Transcript t : transcripts) {
+            writer.write(String.format(Locale.ROOT, "%.1f\t%d\t%.3f\t%.3f\t%s%n", t.freq(), t.wpm(),
+                    t.startSample() / (double) sampleRate, t.endSample() / (double) sampleRate, t.text()));
+        }
+    }
+
+    private void mixBlock(int n) {
+        if (noiseRms > 0) {
+            for (int i = 0; i < n; i++) {
+                mix[i] = noiseRms * noise.nextGaussian();
+            }
+        } else {
+            Arrays.fill(mix, 0, n, 0);
+        }
+        for (Channel channel : channels) {
+            channel.mixInto(n);
+        }
+    }
+
+    /**
+     * State of a signal: the current message and the fading
+     */
+    private final class Channel {
+        final Signal signal;
+        final KeyingTimeline timeline;
+        final Random random;
+        final double fadingPhase;
+        final double fadingDelta; // radians per sample
+        MorseSynthesizer synthesizer; // null between the messages
+        long nextStart; // sample, negative if the signal is finished
+        long messageStart;
+
+        Channel(Signal signal, KeyingTimeline timeline, long seed, double fadingPhase) {
+            this.signal = signal;
+            this.timeline = timeline;
+            this.random = new Random(seed);
+            this.fadingPhase = fadingPhase;
+            this.fadingDelta = 2 * Math.PI * signal.fadingHz() / sampleRate;
+            this.nextStart = Math.round(signal.startSeconds() * sampleRate);
+        }
+
+        void mixInto(int n) {
+            int i = 0;
+            while (i < n) {
+                final long t = position + i;
+                if (synthesizer == null) {
+                    if (nextStart < 0 || nextStart >= position + n) return;
+                    i = (int) Math.max(i, nextStart - position);
+                    synthesizer = new MorseSynthesizer(timeline, sampleRate, signal.freq(), 1200.0 / signal.wpm(),
+                            riseMilliseconds);
+                    if (signal.jitter() > 0) {
+                        synthesizer.setJitter(signal.jitter(), random.nextLong());
+                    }
+                    messageStart = position + i;
+                    continue;
+                }
+                final int count = synthesizer.read(ShortBuffer.wrap(tone, 0, n - i));
+                if (count <= 0) { // the message is finished
+                    transcripts.add(new Transcript(signal.freq(), signal.wpm(), messageStart, t, signal.text()));
+                    synthesizer = null;
+                    nextStart = signal.repeatSeconds() < 0 ? -1 : t + Math.round(signal.repeatSeconds() * sampleRate);
+                    continue;
+                }
+                // the fading is slow, the gain is interpolated linearly between the points of a fixed grid,
+                // so the output does not depend on the block sizes
+                final double scale = signal.amplitude() / Short.MAX_VALUE;
+                for (int k = 0; k < count; ) {
+                    final long cell = (t + k) / fadingGrid * fadingGrid;
+                    final int end = (int) Math.min(count, cell + fadingGrid - t);
+                    final double g0 = scale * gain(cell);
+                    final double step = (scale * gain(cell + fadingGrid) - g0) / fadingGrid;
+                    for (; k < end; k++) {
+                        mix[i + k] += (g0 + step * (t + k - cell)) * tone[k];
+                    }
+                }
+                i += count;
+            }
+        }
+
+        private double gain(long sample) {
+            if (signal.fadingDepth() == 0) return 1;
+            return 1 - signal.fadingDepth() * (0.5 - 0.5 * Math.cos(fadingDelta * sample + fadingPhase));
+        }
+    }
+
+    /**
+     * @param args output WAVE file, number of signals (30), duration in seconds (60), seed (1)
+     */
+    public static void main(String[] args) throws Exception {
+        final Path path = Path.of(args[0]);
+        final int count = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        final double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 60;
+        final long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        final int sampleRate = 8000;
+        final BandGenerator generator = new BandGenerator(randomSignals(count, 300, 3300, seconds, seed),
+                sampleRate, 0.01, Math.round(seconds * sampleRate), seed);
+        final long startNanos = System.nanoTime();
+        try (AudioSink sink = WaveFileSink.open(path, sampleRate)) {
+            generator.writeTo(sink);
+        }
+        final double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        final String name = path.getFileName().toString();
+        final Path transcripts = path.resolveSibling(name.replaceFirst("\\.[^.]*$", "") + ".txt");
+        try (Writer writer = Files.newBufferedWriter(transcripts)) {
+            generator.writeTranscripts(writer);
+        }
+        System.out.printf("%d signals, %.0f s of audio in %.3f s, %d messages%n", count, seconds, elapsedSeconds,
+                generator.getTranscripts().size());
+    }
+}
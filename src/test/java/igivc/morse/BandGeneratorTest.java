@@ -0,0 +1,54 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BandGeneratorTest {
+    private static final int sampleRate = 8000;
+
+    private static short[] generate(BandGenerator generator, int blockSize) {
+        short[] result = new short[0];
+        ShortBuffer buffer = ShortBuffer.allocate(blockSize);
+        int n;
+        while ((n = generator.read(buffer.clear())) > 0) {
+            final int length = result.length;
+            result = Arrays.copyOf(result, length + n);
+            System.arraycopy(buffer.array(), 0, result, length, n);
+        }
+        return result;
+    }
+
+    @Test
+    void testOutputIsDeterministic() {
+        List<BandGenerator.Signal> signals = BandGenerator.randomSignals(20, 300, 3300, 10, 5);
+        short[] first = generate(new BandGenerator(signals, sampleRate, 0.01, 10 * sampleRate, 5), 1000);
+        short[] second = generate(new BandGenerator(signals, sampleRate, 0.01, 10 * sampleRate, 5), 4096);
+        assertEquals(10 * sampleRate, first.length);
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    void testSignalIsDecodedAndTranscribed() throws Exception {
+        BandGenerator.Signal signal = new BandGenerator.Signal("PARIS PARIS PARIS", 800, 20, 0.3, 0.5, 1, 0.2, 0.3, 0);
+        BandGenerator generator = new BandGenerator(List.of(signal), sampleRate, 0.01, 12 * sampleRate, 1);
+        short[] samples = generate(generator, 4096);
+
+        List<BandGenerator.Transcript> transcripts = generator.getTranscripts();
+        assertEquals(1, transcripts.size()); // the repetition is not finished
+        assertEquals(4000, transcripts.get(0).startSample());
+        assertEquals("PARIS PARIS PARIS", transcripts.get(0).text());
+
+        double[] signalSamples = new double[(int) transcripts.get(0).endSample() + sampleRate];
+        for (int i = 0; i < signalSamples.length; i++) {
+            signalSamples[i] = samples[i] / 32768.0;
+        }
+        StringBuilder decoded = new StringBuilder();
+        new Receiver(decoded::append).receive(new SampleArraySource(signalSamples, sampleRate));
+        assertTrue(decoded.toString().contains("PARIS PARIS"), decoded.toString());
+    }
+}
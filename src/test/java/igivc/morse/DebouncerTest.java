@@ -0,0 +1,75 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DebouncerTest {
+    private static final int sampleRate = 8000;
+
+    private static List<String> debounce(int[][] runs) {
+        List<String> result = new ArrayList<>();
+        Debouncer debouncer = new Debouncer((level, duration) -> result.add(level + ":" + duration), sampleRate);
+        for (int[] run : runs) {
+            debouncer.acceptRun(run[0] == 1 ? SignalLevel.High : SignalLevel.Low, run[1]);
+        }
+        return result;
+    }
+
+    @Test
+    void testShortRunsAreMergedIntoPreviousState() {
+        // 20 ms at 8000 Hz is 160 samples
+        List<String> result = debounce(new int[][]{
+                {1, 480}, {0, 50}, {1, 400}, {0, 480}, {1, 1440}, {0, 480}, {1, 480}});
+        assertEquals(List.of("High:930", "Low:480", "High:1440"), result);
+    }
+
+    @Test
+    void testSplitRunsAreTheSameAsWholeRuns() {
+        List<String> whole = debounce(new int[][]{
+                {1, 480}, {0, 480}, {1, 1440}, {0, 480}, {1, 480}, {0, 20000}});
+        List<String> split = debounce(new int[][]{
+                {1, 100}, {1, 380}, {0, 480}, {1, 1000}, {1, 440}, {0, 1}, {0, 479}, {1, 480},
+                {0, 6000}, {0, 6000}, {0, 8000}});
+        assertEquals(whole, split);
+    }
+
+    @Test
+    void testLongSilenceFlushesSavedStates() {
+        List<String> result = debounce(new int[][]{{1, 480}, {0, 480}, {1, 1440}, {0, 12000}});
+        assertEquals(List.of("High:480", "Low:480"), result);
+        result = debounce(new int[][]{{1, 480}, {0, 480}, {1, 1440}, {0, 12002}});
+        assertEquals(List.of("High:480", "Low:480", "High:1440", "Low:12002"), result);
+    }
+
+    @Test
+    void testFlushPassesTheLastElement() {
+        List<String> result = new ArrayList<>();
+        Debouncer debouncer = new Debouncer((level, duration) -> result.add(level + ":" + duration), sampleRate);
+        debouncer.acceptRun(SignalLevel.High, 480);
+        debouncer.acceptRun(SignalLevel.Low, 480);
+        debouncer.acceptRun(SignalLevel.High, 1440);
+        debouncer.acceptRun(SignalLevel.Low, 4000);
+        assertEquals(List.of("High:480", "Low:480"), result);
+        debouncer.flush();
+        assertEquals(List.of("High:480", "Low:480", "High:1440"), result);
+        result.clear();
+        debouncer.acceptRun(SignalLevel.High, 480);
+        debouncer.acceptRun(SignalLevel.Low, 480);
+        debouncer.acceptRun(SignalLevel.High, 1440);
+        debouncer.flush();
+        assertEquals(List.of("High:480", "Low:480", "High:1440"), result);
+        result.clear();
+        // the last dash has a glitch shorter than the minimal dot
+        debouncer.acceptRun(SignalLevel.High, 480);
+        debouncer.acceptRun(SignalLevel.Low, 480);
+        debouncer.acceptRun(SignalLevel.High, 480);
+        debouncer.acceptRun(SignalLevel.Low, 40);
+        debouncer.acceptRun(SignalLevel.High, 920);
+        debouncer.flush();
+        assertEquals(List.of("High:480", "Low:480", "High:1440"), result);
+    }
+}
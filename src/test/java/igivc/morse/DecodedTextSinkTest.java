@@ -0,0 +1,87 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecodedTextSinkTest {
+
+    @Test
+    void testBatchesAreWrittenInOrder() throws IOException {
+        List<String> batches = new CopyOnWriteArrayList<>();
+        try (DecodedTextSink sink = new DecodedTextSink(60_000, 10, TextOutput.callback(batches::add))) {
+            CharBuffer buffer = CharBuffer.allocate(1);
+            for (char c : "PARIS PARIS PARIS".toCharArray()) {
+                buffer.clear();
+                buffer.put(c).flip();
+                sink.accept(buffer); // reused by the caller
+            }
+        }
+        assertEquals("PARIS PARIS PARIS", String.join("", batches));
+        assertTrue(batches.size() <= 2, batches.toString()); // one full batch and the rest on close
+    }
+
+    @Test
+    void testBatchIsWrittenAfterDelay() throws Exception {
+        List<String> batches = new CopyOnWriteArrayList<>();
+        try (DecodedTextSink sink = new DecodedTextSink(20, 1000, TextOutput.callback(batches::add))) {
+            sink.accept("E");
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (batches.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(List.of("E"), batches);
+        }
+    }
+
+    @Test
+    void testClosedSink() throws IOException {
+        DecodedTextSink sink = new DecodedTextSink(TextOutput.callback(s -> {}));
+        sink.close();
+        sink.close();
+        assertThrows(IllegalStateException.class, () -> sink.accept("E"));
+    }
+
+    @Test
+    void testInterruptedFlusher() throws Exception {
+        List<String> batches = new CopyOnWriteArrayList<>();
+        try (DecodedTextSink sink = new DecodedTextSink(60_000, 1, TextOutput.callback(text -> {
+            batches.add(text);
+            if (batches.size() == 1) {
+                Thread.currentThread().interrupt(); // the flusher thread writes the first batch
+            }
+        }))) {
+            sink.accept("E");
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (batches.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            sink.accept("T");
+            sink.accept("A");
+        }
+        assertEquals("ETA", String.join("", batches));
+    }
+
+    @Test
+    void testRollingFile(@TempDir Path dir) throws IOException {
+        final Path path = dir.resolve("morse.txt");
+        try (RollingFileOutput output = new RollingFileOutput(path, 10, 2)) {
+            for (String batch : List.of("OLD FILE 1 ", "PARIS PARIS ", "CQ CQ CQ DE ", "73 ", "SK ", "EE")) {
+                output.write(batch);
+            }
+        }
+        // rolled before the batch when the file has reached 10 bytes
+        assertEquals("73 SK EE", Files.readString(path));
+        assertEquals("CQ CQ CQ DE ", Files.readString(dir.resolve("morse.txt.1")));
+        assertEquals("PARIS PARIS ", Files.readString(dir.resolve("morse.txt.2")));
+        assertFalse(Files.exists(dir.resolve("morse.txt.3")));
+    }
+}
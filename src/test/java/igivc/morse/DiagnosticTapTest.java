@@ -0,0 +1,77 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiagnosticTapTest {
+
+    @Test
+    void testDisabledTap() throws IOException {
+        try (DiagnosticTap tap = DiagnosticTap.open(null, "smoothed", 8000)) {
+            assertFalse(tap.isEnabled());
+            tap.publish(new double[10], 0, 10);
+        }
+    }
+
+    @Test
+    void testTapToCsv(@TempDir Path dir) throws IOException {
+        final int n = 10000; // several blocks
+        double[] samples = new double[n];
+        for (int i = 0; i < n; i++) {
+            samples[i] = (i % 100) / 100.0;
+        }
+        try (DiagnosticTap tap = DiagnosticTap.open(dir, "smoothed", 8000)) {
+            assertTrue(tap.isEnabled());
+            tap.publish(samples, 0, 3);
+            tap.publish(samples, 3, n - 3);
+            assertEquals(0, tap.getOverruns());
+        }
+        final Path tapFile = dir.resolve("smoothed.tap");
+        assertEquals(DiagnosticTap.HEADER_LENGTH + 4L * n, Files.size(tapFile));
+
+        final Path csvFile = DiagnosticTapConverter.toCsv(tapFile);
+        assertEquals(dir.resolve("smoothed.csv"), csvFile);
+        List<String> lines = Files.readAllLines(csvFile);
+        assertEquals(n, lines.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals((int) ((float) samples[i] * 32768), Integer.parseInt(lines.get(i)));
+        }
+    }
+
+    @Test
+    void testRunsAndReceiverLevels(@TempDir Path dir) throws Exception {
+        try (DiagnosticTap tap = DiagnosticTap.open(dir, "runs", 8000)) {
+            tap.publishRun(1, 5000);
+            tap.publishRun(0, 3);
+        }
+        List<String> runs = Files.readAllLines(DiagnosticTapConverter.toCsv(dir.resolve("runs.tap")));
+        assertEquals(5003, runs.size());
+        assertEquals("32768", runs.get(4999));
+        assertEquals("0", runs.get(5000));
+
+        RoundTripBenchmark benchmark = new RoundTripBenchmark(new TextToMorseProcessor(), Receiver.EnvelopeDetector.Hilbert);
+        double[] noisy = benchmark.render("PARIS", new RoundTripBenchmark.Config(20, 800, 20, 0), 1)[0];
+        Receiver receiver = new Receiver(text -> {
+        });
+        receiver.setDiagnosticsDirectory(dir);
+        receiver.receive(new SampleArraySource(noisy, 8000));
+        List<String> levels = Files.readAllLines(DiagnosticTapConverter.toCsv(dir.resolve("levels.tap")));
+        assertTrue(levels.contains("32768") && levels.contains("0"));
+        // the levels are classified from the smoothed envelope, one per sample
+        assertEquals(Files.size(dir.resolve("smoothed.tap")), Files.size(dir.resolve("levels.tap")));
+    }
+
+    @Test
+    void testNotATap(@TempDir Path dir) throws IOException {
+        final Path file = dir.resolve("x.tap");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> DiagnosticTapConverter.toCsv(file));
+    }
+}
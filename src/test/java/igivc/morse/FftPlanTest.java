@@ -0,0 +1,70 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FftPlanTest {
+
+    @Test
+    public void testPlanIsCachedPerSize() {
+        assertSame(FftPlan.of(1024), FftPlan.of(1024));
+        assertNotSame(FftPlan.of(1024), FftPlan.of(2048));
+        assertEquals(2048, FftPlan.of(2048).size());
+        assertThrows(IllegalArgumentException.class, () -> FftPlan.of(1000));
+        assertThrows(IllegalArgumentException.class, () -> FftPlan.of(0));
+        assertThrows(IllegalArgumentException.class, () -> FftPlan.of(8).forward(new double[4], new double[8]));
+    }
+
+    /**
+     * Compares with the direct DFT, exact twiddles are taken by (k * i) mod n.
+     */
+    @Test
+    public void testMatchesDirectDft() {
+        final int n = 4096;
+        double[] real = new double[n];
+        double[] imag = new double[n];
+        Random rnd = new Random(1);
+        for (int i = 0; i < n; i++) {
+            real[i] = rnd.nextDouble() * 2 - 1;
+            imag[i] = rnd.nextDouble() * 2 - 1;
+        }
+        double[] re = real.clone();
+        double[] im = imag.clone();
+        FftPlan.of(n).forward(re, im);
+
+        double maxError = 0;
+        for (int k = 0; k < n; k += 37) {
+            double sr = 0, si = 0;
+            for (int i = 0; i < n; i++) {
+                double ang = -2 * Math.PI * (int) ((long) k * i % n) / n;
+                double c = Math.cos(ang), s = Math.sin(ang);
+                sr += real[i] * c - imag[i] * s;
+                si += real[i] * s + imag[i] * c;
+            }
+            maxError = Math.max(maxError, Math.hypot(sr - re[k], si - im[k]));
+        }
+        assertTrue(maxError < 1e-11, "max error " + maxError);
+    }
+
+    @Test
+    public void testInverseRestoresSignal() {
+        final int n = 1 << 14;
+        double[] real = new double[n];
+        double[] imag = new double[n];
+        Random rnd = new Random(2);
+        for (int i = 0; i < n; i++) {
+            real[i] = rnd.nextGaussian();
+        }
+        double[] orig = real.clone();
+        FftPlan plan = FftPlan.of(n);
+        plan.forward(real, imag);
+        plan.inverse(real, imag);
+        for (int i = 0; i < n; i++) {
+            assertEquals(orig[i], real[i], 1e-13, "real[" + i + "]");
+            assertEquals(0.0, imag[i], 1e-13, "imag[" + i + "]");
+        }
+    }
+}
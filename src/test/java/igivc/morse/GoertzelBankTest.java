@@ -0,0 +1,80 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GoertzelBankTest {
+
+    @Test
+    void testMatchesSingleGoertzelFilters() {
+        final int windowWidth = 200, shift = 50;
+        final int[] k = {10, 16, 25};
+        Random rnd = new Random(5);
+        double[] signal = new double[3000];
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = Math.sin(2 * Math.PI * 16 * i / windowWidth) + 0.3 * rnd.nextGaussian();
+        }
+
+        ArrayList<ArrayList<Double>> expected = new ArrayList<>();
+        for (int kk : k) {
+            ArrayList<Double> results = new ArrayList<>();
+            Goertzel goertzel = new Goertzel(kk, windowWidth, shift, true, (Goertzel g) -> results.add(g.getMagnitude()));
+            for (double x : signal) goertzel.process(x);
+            expected.add(results);
+        }
+
+        ArrayList<double[]> frames = new ArrayList<>();
+        ArrayList<Long> positions = new ArrayList<>();
+        GoertzelBank bank = new GoertzelBank(new double[]{10, 16, 25}, windowWidth, shift, true, (GoertzelBank b) -> {
+            frames.add(b.getMagnitudes().clone());
+            positions.add(b.getSignalPosition());
+        });
+        // uneven blocks
+        for (int i = 0; i < signal.length; i += 77) {
+            bank.process(signal, i, Math.min(77, signal.length - i));
+        }
+
+        assertEquals(expected.getFirst().size(), frames.size());
+        assertEquals(windowWidth, positions.getFirst());
+        assertEquals(windowWidth + shift, positions.get(1));
+        for (int f = 0; f < frames.size(); f++) {
+            for (int b = 0; b < k.length; b++) {
+                assertEquals(expected.get(b).get(f), frames.get(f)[b], 1e-9, "frame " + f + ", bin " + b);
+            }
+        }
+    }
+
+    @Test
+    void testFractionalBin() {
+        final int sampleRate = 8000, windowWidth = 256;
+        final double freq = 812.5;
+        double[] k = GoertzelBank.bins(sampleRate, windowWidth, freq);
+        assertEquals(26.0, k[0], 1e-12);
+        k = GoertzelBank.bins(sampleRate, windowWidth, 700, 810);
+
+        double[] signal = new double[windowWidth];
+        for (int i = 0; i < windowWidth; i++) {
+            signal[i] = Math.cos(2 * Math.PI * 810 * i / sampleRate + 0.3);
+        }
+        ArrayList<double[]> frames = new ArrayList<>();
+        GoertzelBank bank = new GoertzelBank(k, windowWidth, windowWidth, false, (GoertzelBank b) -> frames.add(b.getMagnitudes().clone()));
+        for (double x : signal) bank.process(x);
+        assertEquals(1, frames.size());
+
+        // direct DTFT
+        for (int b = 0; b < k.length; b++) {
+            double re = 0, im = 0;
+            for (int i = 0; i < windowWidth; i++) {
+                double p = 2 * Math.PI * k[b] * i / windowWidth;
+                re += signal[i] * Math.cos(p);
+                im -= signal[i] * Math.sin(p);
+            }
+            assertEquals(Math.hypot(re, im), frames.getFirst()[b], 1e-9);
+        }
+        assertTrue(frames.getFirst()[1] > 10 * frames.getFirst()[0]);
+    }
+}
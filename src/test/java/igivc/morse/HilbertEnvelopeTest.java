@@ -219,4 +219,50 @@ public class HilbertEnvelopeTest {
         );
     }
 
+    @Test
+    public void testMatchesComplexAnalyticSignal() {
+        int n = 2048;
+        double[] src = new double[n];
+        double[] dst = new double[n];
+        Random rnd = new Random(321);
+        for (int i = 0; i < n; i++) {
+            src[i] = Math.sin(2.0 * Math.PI * 200.5 * i / n) + 0.2 * rnd.nextGaussian();
+        }
+
+        // reference: abs(IFFT(H * FFT(x))) with the full complex transforms
+        double[] real = src.clone();
+        double[] imag = new double[n];
+        FFT.fft(real, imag, false);
+        for (int k = 1; k < n / 2; k++) {
+            real[k] *= 2;
+            imag[k] *= 2;
+        }
+        for (int k = n / 2 + 1; k < n; k++) {
+            real[k] = imag[k] = 0;
+        }
+        FFT.fft(real, imag, true);
+
+        new HilbertEnvelope(src, dst).envelope();
+
+        for (int i = 0; i < n; i++) {
+            assertEquals(Math.hypot(real[i], imag[i]), dst[i], 1e-10, "dst[" + i + "]");
+        }
+    }
+
+    @Test
+    public void testInPlaceMatchesSeparateBuffers() {
+        int n = 1024;
+        double[] src = new double[n];
+        Random rnd = new Random(7);
+        for (int i = 0; i < n; i++) {
+            src[i] = Math.sin(2.0 * Math.PI * 50.3 * i / n) + 0.1 * rnd.nextGaussian();
+        }
+        double[] dst = new double[n];
+        new HilbertEnvelope(src, dst).envelope();
+
+        double[] buf = src.clone();
+        new HilbertEnvelope(buf, buf).envelope();
+
+        assertArrayEquals(dst, buf, 0.0);
+    }
 }
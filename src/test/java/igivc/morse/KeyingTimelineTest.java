@@ -0,0 +1,68 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyingTimelineTest {
+    private final TextToMorseProcessor mp = new TextToMorseProcessor();
+
+    private static String runs(KeyingTimeline timeline) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < timeline.size(); i++) {
+            sb.append(timeline.isKeyDown(i) ? '+' : '-').append(timeline.units(i));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void testStandardTiming() {
+        // A: .-, E: ., T: -
+        KeyingTimeline timeline = mp.textToTimeline(" ae t ");
+        assertEquals("+1-1+3-3+1-7+3", runs(timeline));
+        assertEquals(19, timeline.totalUnits());
+        // PARIS is 50 units with the trailing word gap
+        assertEquals(50 - KeyingTimeline.wordGapUnits, mp.textToTimeline("PARIS").totalUnits());
+    }
+
+    @Test
+    void testEncoderIsTheSameAsMorseString() {
+        final String text = "Hello  all, 73!";
+        assertEquals(KeyingTimeline.fromMorse(mp.textToMorse(text)), mp.textToTimeline(text));
+    }
+
+    @Test
+    void testUnsupportedSymbol() {
+        assertThrows(IllegalArgumentException.class, () -> KeyingTimeline.fromMorse(".-x"));
+    }
+
+    @Test
+    void testRepeatedWordGapsAreNotAccumulated() {
+        KeyingTimeline.Builder builder = new KeyingTimeline.Builder();
+        builder.element(false);
+        for (int i = 0; i < 20; i++) {
+            builder.endWord();
+        }
+        builder.element(true);
+        assertEquals("+1-7+3", runs(builder.build()));
+    }
+
+    @Test
+    void testWriteRead() throws IOException {
+        KeyingTimeline timeline = mp.textToTimeline("The quick brown fox jumps over the lazy dog 0123456789");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        timeline.write(out);
+        assertEquals(8 + timeline.size(), out.size());
+        KeyingTimeline read = KeyingTimeline.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(timeline, read);
+        assertEquals(timeline.totalUnits(), read.totalUnits());
+
+        byte[] corrupted = out.toByteArray();
+        corrupted[0] = 0;
+        assertThrows(IOException.class, () -> KeyingTimeline.read(new ByteArrayInputStream(corrupted)));
+    }
+}
@@ -0,0 +1,70 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.CharBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MorseCodecTest {
+    private final TextToMorseProcessor mp = new TextToMorseProcessor();
+    private final MorseCodec codec = mp.getCodec();
+
+    private static String randomText(int length, long seed) {
+        final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789.,?abc  Ъ\n";
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void testEncode() {
+        assertEquals("....|.|.-..|.-..|---| |.-|.-..|.-..", codec.encode("  hello Ъ  all\n"));
+        assertEquals("", codec.encode(" Ъ "));
+        assertEquals(".----|..---", codec.encode("12"));
+    }
+
+    @Test
+    void testDecode() {
+        assertEquals("HELLO ALL", codec.decode("....|.|.-..|.-..|---| |.-|.-..|.-.."));
+        assertEquals("?E", codec.decode("........|."));
+        assertEquals("", codec.decode("| |"));
+        assertEquals("HELLO ALL", mp.morseToText(mp.textToMorse("Hello   all ")));
+    }
+
+    @Test
+    void testStreams() throws IOException {
+        final String text = randomText(50000, 1);
+        final String morse = codec.encode(text);
+        StringWriter writer = new StringWriter();
+        codec.encode(new StringReader(text), writer);
+        assertEquals(morse, writer.toString());
+
+        CharBuffer buffer = CharBuffer.allocate(morse.length());
+        codec.encode(text, buffer);
+        assertEquals(morse, buffer.flip().toString());
+
+        StringBuilder decoded = new StringBuilder();
+        codec.decode(new StringReader(morse), decoded);
+        assertEquals(codec.decode(morse), decoded.toString());
+        assertEquals(decoded.toString(), codec.decode(codec.encode(decoded)));
+    }
+
+    @Test
+    void testParallelIsTheSameAsSequential() throws IOException {
+        final String text = randomText(3 * MorseCodec.parallelThreshold + 123, 2);
+        StringBuilder sequential = new StringBuilder();
+        codec.encode(text, sequential);
+        assertEquals(sequential.toString(), codec.encode(text));
+        assertEquals(sequential.toString(), codec.encodeParallel(text, 1000));
+        assertEquals(codec.encode("x  y  z"), codec.encodeParallel("x  y  z", 1));
+        assertEquals(codec.encode("  long   "), codec.encodeParallel("  long   ", 3));
+    }
+}
@@ -0,0 +1,69 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MorseDecoderTest {
+    private static final int dot = 480;
+
+    /**
+     * Keys the elements with ideal timing: '.' and '-' are tones, '|' is a character gap, ' ' is a word gap
+     */
+    private static String decode(String elements) {
+        StringBuilder result = new StringBuilder();
+        MorseDecoder decoder = new MorseDecoder(result::append);
+        SignalState ss = new SignalState();
+        for (int i = 0; i < elements.length(); i++) {
+            final char c = elements.charAt(i);
+            if (c == '.' || c == '-') {
+                if (i > 0 && (elements.charAt(i - 1) == '.' || elements.charAt(i - 1) == '-')) {
+                    key(decoder, ss, SignalLevel.Low, dot);
+                }
+                key(decoder, ss, SignalLevel.High, c == '.' ? dot : 3 * dot);
+            } else {
+                key(decoder, ss, SignalLevel.Low, c == '|' ? 3 * dot : 7 * dot);
+            }
+        }
+        decoder.flush();
+        return result.toString();
+    }
+
+    private static void key(MorseDecoder decoder, SignalState ss, SignalLevel level, int duration) {
+        ss.signalLevel = level;
+        ss.durationInSamples = duration;
+        decoder.accept(ss, dot);
+    }
+
+    @Test
+    void testTreeIndexes() {
+        char[] tree = MorseDecoder.buildTree(Map.of((int) 'E', ".", (int) 'T', "-", (int) 'A', ".-", (int) 'N', "-."));
+        assertEquals(8, tree.length);
+        assertEquals('E', tree[2]);
+        assertEquals('T', tree[3]);
+        assertEquals('A', tree[5]);
+        assertEquals('N', tree[6]);
+        assertEquals(0, tree[4]);
+    }
+
+    @Test
+    void testWords() {
+        TextToMorseProcessor mp = new TextToMorseProcessor();
+        assertEquals("HELLO ALL", decode(mp.textToMorse("Hello all")));
+        assertEquals("PARIS 73", decode(mp.textToMorse("paris 73")));
+    }
+
+    @Test
+    void testUnknownCodes() {
+        assertEquals("?E", decode("........|."));
+        assertEquals("?", decode("--.---"));
+    }
+
+    @Test
+    void testSpaceIsNotRepeated() {
+        assertEquals("E T ", decode(".  -  "));
+        assertEquals("", decode("  "));
+    }
+}
@@ -0,0 +1,137 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MorseSynthesizerTest {
+    private static final int sampleRate = 8000;
+    private static final int freq = 800; // 10 samples per period
+    private static final double dotMilliseconds = 60; // 480 samples, 20 WPM
+
+    private static MorseSynthesizer synthesizer(String morse) {
+        return new MorseSynthesizer(KeyingTimeline.fromMorse(morse), sampleRate, freq, dotMilliseconds);
+    }
+
+    private static byte[] render(MorseSynthesizer synthesizer, int blockSize) {
+        byte[] result = new byte[0];
+        byte[] block = new byte[blockSize];
+        int n;
+        while ((n = synthesizer.read(block, 0, block.length)) >= 0) {
+            assertTrue(n > 0);
+            final int length = result.length;
+            result = Arrays.copyOf(result, length + n);
+            System.arraycopy(block, 0, result, length, n);
+        }
+        return result;
+    }
+
+    @Test
+    void testTiming() {
+        // A: dot, gap, dash, trailing gap
+        byte[] samples = render(synthesizer(".-"), 1000);
+        assertEquals(6 * 480, samples.length);
+        assertEquals(0, samples[0]);
+        assertTrue(samples[2] > 50); // tone
+        for (int i = 480; i < 960; i++) {
+            assertEquals(0, samples[i]); // element gap
+        }
+        assertTrue(samples[962] > 50);
+        assertEquals(0, samples[5 * 480]); // trailing gap
+    }
+
+    @Test
+    void testBlockSizeDoesNotMatter() {
+        final String morse = "....|.|.-..|.-..|---| |.-|.-..|.-..";
+        assertArrayEquals(render(synthesizer(morse), 4096), render(synthesizer(morse), 7));
+    }
+
+    @Test
+    void testShortBuffer() {
+        final String morse = ".--.|.-|.-.|..|...";
+        byte[] bytes = render(synthesizer(morse), 256);
+        MorseSynthesizer synthesizer = synthesizer(morse);
+        ShortBuffer buffer = ShortBuffer.allocate(333);
+        int total = 0;
+        int n;
+        while ((n = synthesizer.read(buffer)) >= 0) {
+            buffer.flip();
+            for (int i = 0; i < n; i++) {
+                final short s = buffer.get();
+                assertEquals(bytes[total + i] == 0, s == 0);
+            }
+            buffer.clear();
+            total += n;
+        }
+        assertEquals(bytes.length, total);
+        assertTrue(synthesizer.isFinished());
+    }
+
+    @Test
+    void testOscillatorToneIsTheSameAsTemplate() throws IOException {
+        // tones of 1 and 3 units come from the templates, 5 units from the oscillator
+        byte[] file = {'M', 'K', 'T', '1', 0, 0, 0, 3, (byte) 0x81, 0x01, (byte) 0x85};
+        KeyingTimeline timeline = KeyingTimeline.read(new ByteArrayInputStream(file));
+        MorseSynthesizer synthesizer = new MorseSynthesizer(timeline, sampleRate, freq, dotMilliseconds);
+        ShortBuffer buffer = ShortBuffer.allocate(10000);
+        assertEquals(8 * 480, synthesizer.read(buffer));
+        final double delta = 2 * Math.PI * freq / sampleRate;
+        for (int n = 0; n < 480; n++) {
+            assertEquals(Short.MAX_VALUE * Math.sin(delta * n), buffer.get(n), 1.0);
+        }
+        for (int n = 0; n < 5 * 480; n++) {
+            assertEquals(Short.MAX_VALUE * Math.sin(delta * n), buffer.get(960 + n), 1.0);
+        }
+    }
+
+    @Test
+    void testRiseAndFall() {
+        MorseSynthesizer synthesizer = new MorseSynthesizer(KeyingTimeline.fromMorse("-"), sampleRate, freq,
+                dotMilliseconds, 5);
+        ShortBuffer buffer = ShortBuffer.allocate(4 * 480);
+        synthesizer.read(buffer);
+        int first = 0, last = 0;
+        for (int n = 0; n < 4; n++) { // the ramp is 40 samples
+            first = Math.max(first, Math.abs(buffer.get(n)));
+            last = Math.max(last, Math.abs(buffer.get(3 * 480 - 1 - n)));
+        }
+        assertTrue(first < 1000, "first period " + first);
+        assertTrue(last < 1000, "last period " + last);
+        int middle = 0;
+        for (int n = 700; n < 710; n++) {
+            middle = Math.max(middle, Math.abs(buffer.get(n)));
+        }
+        assertTrue(middle > 30000, "middle " + middle);
+    }
+
+    @Test
+    void testJitterIsDeterministic() {
+        final byte[] nominal = render(synthesizer("...|---| |..."), 1000);
+        final MorseSynthesizer first = synthesizer("...|---| |...");
+        first.setJitter(0.2, 7);
+        final MorseSynthesizer second = synthesizer("...|---| |...");
+        second.setJitter(0.2, 7);
+        final MorseSynthesizer other = synthesizer("...|---| |...");
+        other.setJitter(0.2, 8);
+        final byte[] jittered = render(first, 1000);
+        assertArrayEquals(jittered, render(second, 333));
+        assertFalse(Arrays.equals(jittered, render(other, 1000)));
+        assertNotEquals(nominal.length, jittered.length);
+        assertEquals(nominal.length, jittered.length, 0.3 * nominal.length);
+    }
+
+    @Test
+    void testTemplateCacheIsBounded() {
+        final WaveformTemplates first = WaveformTemplates.of(sampleRate, 1234, dotMilliseconds, 16, 5);
+        assertSame(first, WaveformTemplates.of(sampleRate, 1234, dotMilliseconds, 16, 5));
+        for (int i = 0; i < WaveformTemplates.cacheCapacity; i++) {
+            WaveformTemplates.of(sampleRate, 1300 + i, dotMilliseconds, 16, 5);
+        }
+        assertNotSame(first, WaveformTemplates.of(sampleRate, 1234, dotMilliseconds, 16, 5)); // evicted
+    }
+}
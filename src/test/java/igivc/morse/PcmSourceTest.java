@@ -0,0 +1,77 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PcmSourceTest {
+
+    private static final double EPS = 1e-12;
+
+    @Test
+    public void testSigned16BitLittleEndian() throws IOException {
+        byte[] data = {0x00, 0x40, 0x00, (byte) 0xC0, (byte) 0xFF, 0x7F};
+        try (PcmSource source = new PcmSource(new ByteArrayInputStream(data), PcmSource.defaultFormat(8000))) {
+            assertEquals(8000, source.getSampleRate());
+            double[] buffer = new double[16];
+            assertEquals(3, source.read(buffer));
+            assertEquals(0.5, buffer[0], EPS);
+            assertEquals(-0.5, buffer[1], EPS);
+            assertEquals(32767 / 32768.0, buffer[2], EPS);
+            assertEquals(-1, source.read(buffer));
+        }
+    }
+
+    @Test
+    public void testStereoIsMixedDownAndSplitFramesAreKept() throws IOException {
+        AudioFormat format = new AudioFormat(8000, 16, 2, true, true);
+        byte[] data = {0x40, 0x00, 0x00, 0x00, 0x40, 0x00, 0x40, 0x00, 0x12}; // the last byte is an incomplete frame
+        // the stream returns one byte per read, frames are split between reads
+        ByteArrayInputStream in = new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        try (PcmSource source = new PcmSource(in, format)) {
+            double[] buffer = new double[1];
+            assertEquals(1, source.read(buffer));
+            assertEquals(0.25, buffer[0], EPS);
+            assertEquals(1, source.read(buffer));
+            assertEquals(0.5, buffer[0], EPS);
+            assertEquals(-1, source.read(buffer));
+        }
+    }
+
+    @Test
+    public void testWaveFile8BitUnsigned() throws IOException {
+        byte[] samples = {(byte) 128, (byte) 192, 64, 0};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new WaveHeader(WaveHeader.FORMAT_PCM, (short) 1, 11025, (short) 8, samples.length).write(out);
+        out.write(samples);
+        out.write(new byte[]{1, 2, 3}); // trailing chunk must not be decoded
+
+        try (WaveFileSource source = new WaveFileSource(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(11025, source.getSampleRate());
+            assertFalse(source.isRealTime());
+            double[] buffer = new double[3];
+            assertEquals(3, source.read(buffer));
+            assertArrayEquals(new double[]{0.0, 0.5, -0.5}, buffer, EPS);
+            assertEquals(1, source.read(buffer));
+            assertEquals(-1.0, buffer[0], EPS);
+            assertEquals(-1, source.read(buffer));
+        }
+    }
+
+    @Test
+    public void testWaveFileRejectsNonPcm() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new WaveHeader(WaveHeader.FORMAT_ULAW, (short) 1, 8000, (short) 8, 0).write(out);
+        assertThrows(IOException.class, () -> new WaveFileSource(new ByteArrayInputStream(out.toByteArray())));
+    }
+}
@@ -0,0 +1,77 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolyphaseChannelizerTest {
+    private static final int sampleRate = 8000;
+
+    private static double[] tone(double freq, double amplitude, int length) {
+        final double[] samples = new double[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = amplitude * Math.cos(2 * Math.PI * freq * i / sampleRate);
+        }
+        return samples;
+    }
+
+    @Test
+    void testToneIsInItsChannelOnly() {
+        final List<double[]> magnitudes = new ArrayList<>();
+        PolyphaseChannelizer channelizer = new PolyphaseChannelizer(sampleRate, 512, 16, 50, c -> {
+            final double[] frame = new double[c.getChannelCount()];
+            for (int k = 0; k < frame.length; k++) {
+                frame[k] = c.getMagnitude(k);
+            }
+            magnitudes.add(frame);
+        });
+        final int k = channelizer.channel(1000);
+        assertEquals(64, k);
+        assertEquals(1000, channelizer.getChannelFrequency(k), 1e-9);
+        final double[] samples = tone(1000, 0.5, 8000);
+        // uneven blocks
+        for (int i = 0; i < samples.length; i += 77) {
+            channelizer.process(samples, i, Math.min(77, samples.length - i));
+        }
+
+        assertEquals(samples.length / 16, magnitudes.size());
+        assertEquals(500, channelizer.getFrameRate(), 1e-9);
+        // after the filter delay of 2048 samples (128 frames)
+        for (int frame = 130; frame < magnitudes.size(); frame++) {
+            final double[] m = magnitudes.get(frame);
+            assertEquals(0.5, m[k], 0.005);
+            for (int j = 0; j < m.length; j++) {
+                if (Math.abs(j - k) >= 4) { // 62.5 Hz and farther
+                    assertTrue(m[j] < 0.5e-3, "channel " + j + ": " + m[j]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testPhaseIsContinuous() {
+        // a tone 10 Hz above the channel centre rotates by 2*pi*10/500 per frame
+        final List<double[]> frames = new ArrayList<>();
+        PolyphaseChannelizer channelizer = new PolyphaseChannelizer(sampleRate, 512, 16, 50,
+                c -> frames.add(new double[]{c.getReal()[64], c.getImag()[64]}));
+        final double[] samples = tone(1010, 1, 8000);
+        channelizer.process(samples, 0, samples.length);
+        final double expected = 2 * Math.PI * 10 / 500;
+        for (int frame = 131; frame < frames.size(); frame++) {
+            final double[] a = frames.get(frame - 1), b = frames.get(frame);
+            final double delta = Math.atan2(a[0] * b[1] - a[1] * b[0], a[0] * b[0] + a[1] * b[1]);
+            assertEquals(expected, delta, 1e-3);
+        }
+    }
+
+    @Test
+    void testParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new PolyphaseChannelizer(0, 512, 16, 50, c -> {}));
+        assertThrows(IllegalArgumentException.class, () -> new PolyphaseChannelizer(8000, 500, 16, 50, c -> {}));
+        assertThrows(IllegalArgumentException.class, () -> new PolyphaseChannelizer(8000, 512, 0, 50, c -> {}));
+        assertThrows(IllegalArgumentException.class, () -> new PolyphaseChannelizer(8000, 512, 16, 0, c -> {}));
+    }
+}
@@ -0,0 +1,51 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuadratureEnvelopeTest {
+
+    @Test
+    public void testSteadyToneGivesAmplitude() {
+        final int fs = 8000;
+        final double A = 0.7;
+        QuadratureEnvelope envelope = new QuadratureEnvelope(fs, 800);
+        double[] x = new double[fs];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = A * Math.sin(2 * Math.PI * 800 * i / fs + 0.4);
+        }
+        envelope.processBuffer(x, 0, x.length);
+        for (int i = fs / 10; i < x.length; i++) {
+            assertEquals(A, x[i], 0.01 * A, "x[" + i + "]");
+        }
+    }
+
+    @Test
+    public void testLowLatency() {
+        final int fs = 8000;
+        QuadratureEnvelope envelope = new QuadratureEnvelope(fs, 800);
+        int rise = -1, fall = -1;
+        for (int i = 0; i < fs / 5; i++) {
+            boolean on = i < fs / 10;
+            double y = envelope.processSample(on ? Math.sin(2 * Math.PI * 800 * i / fs) : 0.0);
+            if (rise < 0 && y > 0.9) rise = i;
+            if (!on && fall < 0 && y < 0.1) fall = i - fs / 10;
+        }
+        // 90% rise and fall in less than 10 ms
+        assertTrue(rise >= 0 && rise < fs / 100, "rise " + rise);
+        assertTrue(fall >= 0 && fall < fs / 100, "fall " + fall);
+    }
+
+    @Test
+    public void testOffFrequencyRejected() {
+        final int fs = 8000;
+        QuadratureEnvelope envelope = new QuadratureEnvelope(fs, 800);
+        double max = 0;
+        for (int i = 0; i < fs; i++) {
+            double y = envelope.processSample(Math.sin(2 * Math.PI * 1600 * i / fs));
+            if (i > fs / 10) max = Math.max(max, y);
+        }
+        assertTrue(max < 0.05, "max " + max);
+    }
+}
@@ -0,0 +1,29 @@
+package igivc.morse;
+
+import java.util.Random;
+
+/**
+ * Deterministic random text for test signals: words of letters and digits, like call signs and reports.
+ */
+final class RandomText {
+    private static final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    private RandomText() {
+    }
+
+    /**
+     * @return random words of 2..6 letters and digits, about {@code length} characters
+     */
+    static String words(int length, long seed) {
+        final Random random = new Random(seed);
+        final StringBuilder sb = new StringBuilder(length + 8);
+        while (sb.length() < length) {
+            if (!sb.isEmpty()) sb.append(' ');
+            final int wordLength = 2 + random.nextInt(5);
+            for (int i = 0; i < wordLength; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+        }
+        return sb.toString();
+    }
+}
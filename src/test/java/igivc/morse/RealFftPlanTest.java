@@ -0,0 +1,59 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RealFftPlanTest {
+    private static final double EPS = 1e-10;
+
+    @Test
+    public void testForwardMatchesComplexFft() {
+        for (int n = 2; n <= 4096; n *= 2) {
+            double[] signal = new double[n];
+            Random rnd = new Random(n);
+            for (int i = 0; i < n; i++) signal[i] = rnd.nextGaussian();
+
+            double[] re = signal.clone();
+            double[] im = new double[n];
+            FFT.fft(re, im, false);
+
+            double[] real = new double[n / 2 + 1];
+            double[] imag = new double[n / 2 + 1];
+            RealFftPlan.of(n).forward(signal, real, imag);
+
+            for (int k = 0; k <= n / 2; k++) {
+                assertEquals(re[k], real[k], EPS, "n=" + n + ", real[" + k + "]");
+                assertEquals(im[k], imag[k], EPS, "n=" + n + ", imag[" + k + "]");
+            }
+        }
+    }
+
+    @Test
+    public void testInverseRestoresSignal() {
+        for (int n = 2; n <= 4096; n *= 2) {
+            double[] signal = new double[n];
+            Random rnd = new Random(n + 1);
+            for (int i = 0; i < n; i++) signal[i] = rnd.nextGaussian();
+
+            double[] real = new double[n / 2 + 1];
+            double[] imag = new double[n / 2 + 1];
+            double[] restored = new double[n];
+            RealFftPlan plan = RealFftPlan.of(n);
+            plan.forward(signal, real, imag);
+            plan.inverse(real, imag, restored);
+
+            assertArrayEquals(signal, restored, EPS, "n=" + n);
+        }
+    }
+
+    @Test
+    public void testRejectsWrongSizes() {
+        assertThrows(IllegalArgumentException.class, () -> RealFftPlan.of(1));
+        assertThrows(IllegalArgumentException.class, () -> RealFftPlan.of(12));
+        assertThrows(IllegalArgumentException.class, () -> RealFftPlan.of(8).forward(new double[8], new double[4], new double[5]));
+        assertSame(RealFftPlan.of(64), RealFftPlan.of(64));
+    }
+}
@@ -0,0 +1,227 @@
+package igivc.morse;
+
+import java.io.IOException;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * End-to-end benchmark of the receiver: the text is rendered by the {@link MorseSynthesizer},
+ * mixed with deterministic Gaussian noise, decoded by the {@link Receiver} from memory and compared with the text.
+ * <p>
+ * Every configuration of the matrix (speed, tone frequency, SNR, timing jitter) reports the character error rate,
+ * the latency of the first character (from the end of its last element to its output) and the real-time factor.
+ * The receiver listens to 800 Hz, so the other tone frequencies measure the tolerance to mistuning.
+ * <p>
+ * It is a test tool, not a part of the receiver. Usage, after {@code mvn test-compile}:
+ * {@code java -cp target/classes:target/test-classes igivc.morse.RoundTripBenchmark [corpus.txt]},
+ * the envelope detector is selected by the system property morse.envelope=Hilbert|Quadrature.
+ */
+final class RoundTripBenchmark {
+    /**
+     * @param wpm    speed, words per minute
+     * @param freq   tone frequency, Hz
+     * @param snrDb  signal to noise ratio in the {@link #noiseBandwidth}, dB, infinite for no noise
+     * @param jitter standard deviation of the element and gap lengths, fraction of the length
+     */
+    record Config(int wpm, double freq, double snrDb, double jitter) {
+    }
+
+    /**
+     * @param characterErrorRate edit distance between the text and the decoded text divided by the text length
+     * @param latencySeconds     delay of the first decoded character after the end of its last element,
+     *                           NaN if nothing is decoded
+     * @param realTimeFactor     audio duration divided by the decoding time
+     */
+    record Result(Config config, String decoded, double characterErrorRate, double latencySeconds,
+                  double realTimeFactor) {
+    }
+
+    static final int sampleRate = 8000;
+    static final double amplitude = 0.5; // of the tone, 0..1
+    static final double noiseBandwidth = 2500; // Hz, reference bandwidth of the SNR
+    static final double leadSeconds = 1; // noise before the message
+    static final double tailSeconds = 1; // noise after the message
+    static final int chunkSize = 80; // samples read at once, 10 ms, the resolution of the latency
+    static final int[] speeds = {15, 25, 35}; // WPM
+    static final double[] freqs = {800, 825}; // Hz
+    static final double[] snrs = {30, 10, 3}; // dB, the receiver is tuned for noisy audio, not for digital silence
+    static final double[] jitters = {0, 0.1};
+    private static final Logger receiverLogger = Logger.getLogger(Receiver.class.getSimpleName());
+    private final TextToMorseProcessor processor;
+    private final Receiver.EnvelopeDetector envelopeDetector;
+
+    RoundTripBenchmark(TextToMorseProcessor processor, Receiver.EnvelopeDetector envelopeDetector) {
+        this.processor = processor;
+        this.envelopeDetector = envelopeDetector;
+    }
+
+    /**
+     * Renders the text: lead noise, the message and tail noise
+     *
+     * @param seed seed of the noise and the jitter
+     * @return the signal and the clean signal, -1..1
+     */
+    double[][] render(String text, Config config, long seed) {
+        final MorseSynthesizer synthesizer = new MorseSynthesizer(processor.textToTimeline(text), sampleRate,
+                config.freq(), 1200.0 / config.wpm());
+        if (config.jitter() > 0) {
+            synthesizer.setJitter(config.jitter(), seed);
+        }
+        final int lead = (int) (leadSeconds * sampleRate);
+        double[] clean = new double[lead + (int) (tailSeconds * sampleRate)];
+        int length = lead;
+        final short[] block = new short[4096];
+        int n;
+        while ((n = synthesizer.read(ShortBuffer.wrap(block))) > 0) {
+            if (length + n > clean.length) {
+                clean = Arrays.copyOf(clean, 2 * (length + n));
+            }
+            for (int i = 0; i < n; i++) {
+                clean[length + i] = amplitude * block[i] / Short.MAX_VALUE;
+            }
+            length += n;
+        }
+        clean = Arrays.copyOf(clean, length + (int) (tailSeconds * sampleRate));
+        final double[] signal = clean.clone();
+        if (config.snrDb() != Double.POSITIVE_INFINITY) {
+            // the tone power is amplitude^2 / 2, the noise is white up to the Nyquist frequency
+            final double noisePower = amplitude * amplitude / 2 / Math.pow(10, config.snrDb() / 10)
+                    * (sampleRate / 2.0) / noiseBandwidth;
+            final double sigma = Math.sqrt(noisePower);
+            final Random random = new Random(seed);
+            for (int i = 0; i < signal.length; i++) {
+                signal[i] += sigma * random.nextGaussian();
+            }
+        }
+        return new double[][]{signal, clean};
+    }
+
+    /**
+     * Renders, decodes and scores the text
+     */
+    Result run(String text, Config config, long seed) throws Exception {
+        final double[][] rendered = render(text, config, seed);
+        final SampleArraySource source = new SampleArraySource(rendered[0], sampleRate, chunkSize);
+        final StringBuilder decoded = new StringBuilder();
+        final int[] firstPosition = {-1};
+        final Receiver receiver = new Receiver(sequence -> {
+            if (firstPosition[0] < 0 && !sequence.toString().isBlank()) {
+                firstPosition[0] = source.getPosition();
+            }
+            decoded.append(sequence);
+        }, envelopeDetector);
+        receiver.receive(source);
+        final int firstEnd = endOfFirstCharacter(rendered[1], (int) Math.round(sampleRate * 1.2 / config.wpm()));
+        final double latency = firstPosition[0] < 0 ? Double.NaN : (firstPosition[0] - firstEnd) / (double) sampleRate;
+        final String reference = normalize(text);
+        final String result = normalize(decoded);
+        return new Result(config, result, editDistance(reference, result) / (double) Math.max(1, reference.length()),
+                latency, receiver.getRealTimeFactor());
+    }
+
+    /**
+     * @return index of the first silent sample after the first character: the start of the first silence
+     * longer than two dots after the first tone, the length of the signal if there is no such silence
+     */
+    static int endOfFirstCharacter(double[] clean, int dotSamples) {
+        int i = 0;
+        while (i < clean.length && clean[i] == 0) i++;
+        int silence = 0;
+        for (; i < clean.length; i++) {
+            if (clean[i] != 0) {
+                silence = 0;
+            } else if (++silence > 2 * dotSamples) {
+                return i - silence + 1;
+            }
+        }
+        return clean.length;
+    }
+
+    /**
+     * @return upper-case words separated by single spaces, the characters without Morse code are separators
+     */
+    String normalize(CharSequence text) {
+        final MorseCodec codec = processor.getCodec();
+        final StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c != MorseDecoder.unknownCharacter && codec.codeOf(c) == null) {
+                if (!sb.isEmpty() && sb.charAt(sb.length() - 1) != ' ') sb.append(' ');
+            } else {
+                sb.append(Character.toUpperCase(c));
+            }
+        }
+        if (!sb.isEmpty() && sb.charAt(sb.length() - 1) == ' ') sb.setLength(sb.length() - 1);
+        return sb.toString();
+    }
+
+    /**
+     * @return Levenshtein distance: insertions, deletions and substitutions
+     */
+    static int editDistance(CharSequence a, CharSequence b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                final int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            final int[] t = previous;
+            previous = current;
+            current = t;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * @return all configurations of the matrix
+     */
+    static List<Config> matrix() {
+        final List<Config> configs = new ArrayList<>();
+        for (int wpm : speeds) {
+            for (double freq : freqs) {
+                for (double snr : snrs) {
+                    for (double jitter : jitters) {
+                        configs.add(new Config(wpm, freq, snr, jitter));
+                    }
+                }
+            }
+        }
+        return configs;
+    }
+
+    /**
+     * @param args optional text file, random text by default
+     */
+    public static void main(String[] args) throws Exception {
+        final String text = args.length > 0 ? Files.readString(Path.of(args[0])).strip() : RandomText.words(80, 1);
+        final Receiver.EnvelopeDetector envelopeDetector =
+                Receiver.EnvelopeDetector.valueOf(System.getProperty("morse.envelope", "Hilbert"));
+        receiverLogger.setLevel(Level.WARNING); // no line per decoded signal
+        final RoundTripBenchmark benchmark = new RoundTripBenchmark(new TextToMorseProcessor(), envelopeDetector);
+        final List<Config> configs = matrix();
+        benchmark.run(text, configs.get(0), 0); // warm up
+        System.out.printf("%-5s %-6s %-6s %-6s %-7s %-9s %-7s%n", "WPM", "Hz", "SNR", "jitter", "CER", "latency", "RTF");
+        double sumCer = 0, minRealTimeFactor = Double.POSITIVE_INFINITY;
+        long seed = 1;
+        for (Config config : configs) {
+            final Result result = benchmark.run(text, config, seed++);
+            System.out.printf("%-5d %-6.0f %-6.0f %-6.2f %-7.3f %-9.3f %-7.1f%n", config.wpm(), config.freq(),
+                    config.snrDb(), config.jitter(), result.characterErrorRate(), result.latencySeconds(),
+                    result.realTimeFactor());
+            sumCer += result.characterErrorRate();
+            minRealTimeFactor = Math.min(minRealTimeFactor, result.realTimeFactor());
+        }
+        System.out.printf("mean CER %.3f, min RTF %.1f, %s envelope, %d characters%n",
+                sumCer / configs.size(), minRealTimeFactor, envelopeDetector, text.length());
+    }
+}
@@ -0,0 +1,53 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoundTripBenchmarkTest {
+
+    @Test
+    void testEditDistance() {
+        assertEquals(0, RoundTripBenchmark.editDistance("PARIS", "PARIS"));
+        assertEquals(1, RoundTripBenchmark.editDistance("PARIS", "?ARIS"));
+        assertEquals(1, RoundTripBenchmark.editDistance("PARIS", "PARS"));
+        assertEquals(2, RoundTripBenchmark.editDistance("PARIS PARIS", "PARISPARIS?"));
+        assertEquals(5, RoundTripBenchmark.editDistance("PARIS", ""));
+    }
+
+    @Test
+    void testNormalize() {
+        RoundTripBenchmark benchmark = new RoundTripBenchmark(new TextToMorseProcessor(), Receiver.EnvelopeDetector.Hilbert);
+        assertEquals("CQ DE AB1C ?", benchmark.normalize("  cq\tde  ab1c ?\n"));
+    }
+
+    @Test
+    void testSourceIsReadByChunks() {
+        SampleArraySource source = new SampleArraySource(new double[]{1, 2, 3, 4, 5}, 8000, 2);
+        double[] buffer = new double[4];
+        assertEquals(2, source.read(buffer));
+        assertEquals(2, source.read(buffer));
+        assertArrayEquals(new double[]{3, 4, 0, 0}, buffer);
+        assertEquals(1, source.read(buffer));
+        assertEquals(5, source.getPosition());
+        assertEquals(-1, source.read(buffer));
+    }
+
+    @Test
+    void testEndOfFirstCharacter() {
+        RoundTripBenchmark benchmark = new RoundTripBenchmark(new TextToMorseProcessor(), Receiver.EnvelopeDetector.Hilbert);
+        RoundTripBenchmark.Config config = new RoundTripBenchmark.Config(20, 800, 10, 0);
+        double[] clean = benchmark.render("EE", config, 1)[1];
+        // lead, the dot of 480 samples aligned to the 10 samples period, then the character gap
+        assertEquals(8000 + 480, RoundTripBenchmark.endOfFirstCharacter(clean, 480));
+    }
+
+    @Test
+    void testNoisySignalIsDecoded() throws Exception {
+        RoundTripBenchmark benchmark = new RoundTripBenchmark(new TextToMorseProcessor(), Receiver.EnvelopeDetector.Hilbert);
+        String text = "PARIS PARIS PARIS PARIS PARIS PARIS";
+        RoundTripBenchmark.Result result = benchmark.run(text, new RoundTripBenchmark.Config(20, 800, 10, 0.05), 1);
+        assertTrue(result.characterErrorRate() <= 0.1, result.toString());
+        assertTrue(result.latencySeconds() > 0, result.toString());
+    }
+}
@@ -0,0 +1,64 @@
+package igivc.morse;
+
+/**
+ * Audio source reading samples from memory, for example a synthesized signal.
+ * The samples are delivered by chunks, so the position of the decoder in the signal is known
+ * with the chunk resolution, see {@link #getPosition()}.
+ */
+class SampleArraySource implements AudioSource {
+    private final double[] samples;
+    private final int sampleRate;
+    private final int chunkSize;
+    private int position = 0;
+
+    /**
+     * @param samples    the signal, -1..1, it is not copied
+     * @param sampleRate samples per second
+     * @param chunkSize  maximal number of samples returned by one read
+     */
+    SampleArraySource(double[] samples, int sampleRate, int chunkSize) {
+        if (sampleRate <= 0) throw new IllegalArgumentException("fs");
+        if (chunkSize < 1) throw new IllegalArgumentException("chunkSize");
+        this.samples = samples;
+        this.sampleRate = sampleRate;
+        this.chunkSize = chunkSize;
+    }
+
+    SampleArraySource(double[] samples, int sampleRate) {
+        this(samples, sampleRate, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return number of samples read
+     */
+    int getPosition() {
+        return position;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public int read(double[] buffer) {
+        if (position == samples.length) return -1;
+        final int n = Math.min(Math.min(buffer.length, chunkSize), samples.length - position);
+        System.arraycopy(samples, position, buffer, 0, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public boolean isRealTime() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,135 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SampleBlockQueueTest {
+
+    private static void write(SampleBlockQueue queue, double value, int length) {
+        double[] block = queue.beginWrite();
+        for (int i = 0; i < length; i++) {
+            block[i] = value;
+        }
+        queue.endWrite(length);
+    }
+
+    private static List<Double> readAll(SampleBlockQueue queue) {
+        List<Double> result = new ArrayList<>();
+        double[] buffer = new double[3];
+        int n;
+        while ((n = queue.read(buffer)) > 0) {
+            for (int i = 0; i < n; i++) result.add(buffer[i]);
+        }
+        return result;
+    }
+
+    @Test
+    void testPartialReads() {
+        SampleBlockQueue queue = new SampleBlockQueue(4, 8, SampleBlockQueue.OverrunPolicy.Block);
+        write(queue, 1, 5);
+        write(queue, 2, 0);
+        write(queue, 3, 2);
+        assertEquals(3, queue.getDepth());
+        queue.close();
+        assertEquals(List.of(1.0, 1.0, 1.0, 1.0, 1.0, 3.0, 3.0), readAll(queue));
+        assertEquals(-1, queue.read(new double[3]));
+        assertEquals(0, queue.getOverruns());
+    }
+
+    @Test
+    void testDropNewest() {
+        SampleBlockQueue queue = new SampleBlockQueue(3, 1, SampleBlockQueue.OverrunPolicy.DropNewest);
+        assertEquals(4, queue.getCapacity());
+        for (int i = 0; i < 6; i++) {
+            write(queue, i, 1);
+        }
+        assertEquals(2, queue.getOverruns());
+        assertEquals(4, queue.getMaxDepth());
+        queue.close();
+        assertEquals(List.of(0.0, 1.0, 2.0, 3.0), readAll(queue));
+    }
+
+    @Test
+    void testDropOldest() {
+        SampleBlockQueue queue = new SampleBlockQueue(4, 1, SampleBlockQueue.OverrunPolicy.DropOldest);
+        for (int i = 0; i < 6; i++) {
+            write(queue, i, 1);
+        }
+        queue.close();
+        assertEquals(List.of(2.0, 3.0, 4.0, 5.0), readAll(queue));
+        assertEquals(2, queue.getOverruns());
+    }
+
+    @Test
+    void testDropOldestCountsOverrunsBeforeRead() {
+        SampleBlockQueue queue = new SampleBlockQueue(4, 1, SampleBlockQueue.OverrunPolicy.DropOldest);
+        for (int i = 0; i < 10; i++) {
+            write(queue, i, 1);
+        }
+        assertEquals(6, queue.getOverruns());
+        assertEquals(4, queue.getMaxDepth());
+        queue.close();
+        assertEquals(List.of(6.0, 7.0, 8.0, 9.0), readAll(queue));
+        assertEquals(6, queue.getOverruns());
+    }
+
+    @Test
+    void testBlockingProducerAndConsumer() throws InterruptedException {
+        final int nBlocks = 20000;
+        SampleBlockQueue queue = new SampleBlockQueue(4, 16, SampleBlockQueue.OverrunPolicy.Block);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < nBlocks; i++) {
+                double[] block = queue.beginWrite();
+                for (int j = 0; j < 16; j++) block[j] = i * 16 + j;
+                queue.endWrite(16);
+            }
+            queue.close();
+        });
+        producer.start();
+        double[] buffer = new double[7];
+        double expected = 0;
+        int n;
+        while ((n = queue.read(buffer)) > 0) {
+            for (int i = 0; i < n; i++) {
+                assertEquals(expected++, buffer[i]);
+            }
+        }
+        producer.join();
+        assertEquals(nBlocks * 16.0, expected);
+        assertEquals(0, queue.getOverruns());
+    }
+
+    @Test
+    void testDropOldestUnderLoadKeepsOrder() throws InterruptedException {
+        SampleBlockQueue queue = new SampleBlockQueue(4, 64, SampleBlockQueue.OverrunPolicy.DropOldest);
+        final int nBlocks = 50000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < nBlocks; i++) {
+                double[] block = queue.beginWrite();
+                for (int j = 0; j < 64; j++) block[j] = i;
+                queue.endWrite(64);
+            }
+            queue.close();
+        });
+        producer.start();
+        double[] buffer = new double[64];
+        double last = -1;
+        long blocks = 0;
+        int n;
+        while ((n = queue.read(buffer)) > 0) {
+            assertEquals(64, n);
+            for (int i = 1; i < n; i++) {
+                assertEquals(buffer[0], buffer[i]); // not torn
+            }
+            assertTrue(buffer[0] > last);
+            last = buffer[0];
+            blocks++;
+        }
+        producer.join();
+        assertEquals(nBlocks, blocks + queue.getOverruns());
+    }
+}
@@ -0,0 +1,59 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignalLevelClassifierTest {
+    private static final int sampleRate = 8000;
+
+    /**
+     * @return noise and dots of 400 samples with 100 samples edges, the gaps after the dots are {@code gaps}
+     */
+    private static double[] envelope(int[] gaps) {
+        final Random random = new Random(1);
+        int length = 4000;
+        for (int gap : gaps) length += 400 + gap;
+        final double[] envelope = new double[length];
+        int position = 4000;
+        for (int gap : gaps) {
+            for (int i = 0; i < 400; i++) {
+                envelope[position + i] = Math.min(1, Math.min(i, 400 - i) / 100.0);
+            }
+            position += 400 + gap;
+        }
+        for (int i = 0; i < length; i++) {
+            envelope[i] += 0.05 + 0.02 * random.nextDouble();
+        }
+        return envelope;
+    }
+
+    @Test
+    void testElementsAfterLongGapsAreNotLonger() {
+        // dots separated by element gaps and character gaps
+        final int[] gaps = {400, 400, 1200, 400, 1200, 1200, 400, 400, 1200, 2800, 400, 1200};
+        final double[] envelope = envelope(gaps);
+        final List<Integer> dots = new ArrayList<>();
+        final SignalLevel[] lastLevel = {null};
+        SignalLevelClassifier classifier = new SignalLevelClassifier((level, duration) -> {
+            if (level == lastLevel[0] && level == SignalLevel.High) {
+                dots.set(dots.size() - 1, dots.get(dots.size() - 1) + duration);
+            } else if (level == SignalLevel.High) {
+                dots.add(duration);
+            }
+            lastLevel[0] = level;
+        }, sampleRate);
+        classifier.processBuffer(envelope, 0, envelope.length);
+
+        // the leading noise and the first dot are classified before the thresholds are known
+        assertEquals(gaps.length + 1, dots.size(), dots.toString());
+        final int reference = dots.get(2); // a dot after an element gap
+        for (int i = 3; i < dots.size(); i++) {
+            assertEquals(reference, dots.get(i), 40, dots.toString());
+        }
+    }
+}
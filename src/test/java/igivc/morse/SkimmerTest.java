@@ -0,0 +1,79 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SkimmerTest {
+    private static final int sampleRate = 8000;
+
+    @Test
+    void testEverySignalIsDecoded() {
+        List<BandGenerator.Signal> signals = List.of(
+                new BandGenerator.Signal("CQ CQ DE AB1CD AB1CD K", 600, 18, 0.1, 0.5, -1, 0, 0, 0),
+                new BandGenerator.Signal("PARIS PARIS PARIS", 1000, 22, 0.05, 1.0, -1, 0.2, 0.5, 0.02),
+                new BandGenerator.Signal("TEST DE XY9Z TEST", 1800, 25, 0.2, 0.2, -1, 0, 0, 0));
+        final int length = 25 * sampleRate;
+        BandGenerator generator = new BandGenerator(signals, sampleRate, 0.01, length, 1);
+        ShortBuffer pcm = ShortBuffer.allocate(length);
+        generator.read(pcm);
+        double[] samples = new double[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = pcm.get(i) / 32768.0;
+        }
+
+        Map<Double, StringBuilder> decoded = new TreeMap<>();
+        List<Double> opened = new ArrayList<>(), closed = new ArrayList<>();
+        Skimmer skimmer = new Skimmer(new Skimmer.Listener() {
+            @Override
+            public void text(double freq, CharSequence text) {
+                decoded.computeIfAbsent(freq, f -> new StringBuilder()).append(text);
+            }
+
+            @Override
+            public void opened(double freq) {
+                opened.add(freq);
+            }
+
+            @Override
+            public void closed(double freq) {
+                closed.add(freq);
+            }
+        });
+        skimmer.start(sampleRate);
+        skimmer.process(samples, 0, samples.length);
+        skimmer.flush();
+
+        assertEquals(opened.size(), closed.size());
+        assertEquals(0, skimmer.getChannelFrequencies().length);
+        assertTrue(decodedNear(decoded, 600).contains("DE AB1CD AB1CD"), decoded.toString());
+        assertTrue(decodedNear(decoded, 1000).contains("PARIS PARIS"), decoded.toString());
+        assertTrue(decodedNear(decoded, 1800).contains("DE XY9Z TEST"), decoded.toString());
+    }
+
+    private static String decodedNear(Map<Double, StringBuilder> decoded, double freq) {
+        final StringBuilder sb = new StringBuilder();
+        decoded.forEach((f, text) -> {
+            if (Math.abs(f - freq) < 10) sb.append(text);
+        });
+        return sb.toString();
+    }
+
+    @Test
+    void testLinesListener() {
+        List<String> lines = new ArrayList<>();
+        Skimmer.Listener listener = Skimmer.lines(line -> lines.add(line.toString()));
+        listener.text(812.5, "C");
+        listener.text(1000, "E");
+        listener.text(812.5, "Q ");
+        listener.closed(1000);
+        listener.closed(812.5);
+        assertEquals(List.of(String.format("  812.5 Hz  CQ%n"), String.format(" 1000.0 Hz  E%n")), lines);
+    }
+}
@@ -0,0 +1,83 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingGoertzelTest {
+
+    private static void assertSameAsGoertzel(int k, int windowWidth, boolean useBlackmanHarrisWindow,
+                                             int reanchorInterval, double[] signal) {
+        ArrayList<Double> expected = new ArrayList<>();
+        Goertzel goertzel = new Goertzel(k, windowWidth, 1, useBlackmanHarrisWindow,
+                (Goertzel g) -> expected.add(g.getMagnitude()));
+        SlidingGoertzel sliding = new SlidingGoertzel(k, windowWidth, useBlackmanHarrisWindow, reanchorInterval);
+
+        ArrayList<Double> actual = new ArrayList<>();
+        for (double x : signal) {
+            goertzel.process(x);
+            double m = sliding.process(x);
+            if (sliding.getSignalPosition() >= windowWidth) {
+                actual.add(m);
+            } else {
+                assertEquals(0.0, m);
+            }
+        }
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i), 1e-9 * (1 + expected.get(i)), "i=" + i);
+        }
+    }
+
+    private static double[] toneWithNoise(int n, double freq, int sampleRate, long seed) {
+        Random rnd = new Random(seed);
+        double[] signal = new double[n];
+        for (int i = 0; i < n; i++) {
+            signal[i] = ((i / 400) % 2 == 0 ? 1.0 : 0.0) * Math.sin(2 * Math.PI * freq * i / sampleRate)
+                    + 0.1 * rnd.nextGaussian();
+        }
+        return signal;
+    }
+
+    @Test
+    void testSquareWindowMatchesGoertzel() {
+        assertSameAsGoertzel(16, 160, false, 1000, toneWithNoise(5000, 800, 8000, 1));
+    }
+
+    @Test
+    void testBlackmanHarrisWindowMatchesGoertzel() {
+        assertSameAsGoertzel(16, 160, true, 1000, toneWithNoise(5000, 800, 8000, 2));
+        // bins k-3..k+3 wrap around zero
+        assertSameAsGoertzel(1, 8, true, 3, new double[]{3, 2, 1, -1, 1, -2, -3, -2, 0.5, 4, -1});
+    }
+
+    @Test
+    void testKnownValue() {
+        SlidingGoertzel goertzel = new SlidingGoertzel(1, 8, false);
+        for (double x : new double[]{3, 2, 1, -1, 1, -2, -3, -2}) {
+            goertzel.process(x);
+        }
+        // |(4.1213 - 7.5355j)| = 73.769...
+        assertEquals(737696, Math.round(goertzel.getMagnitudeSquared() * 10000));
+    }
+
+    @Test
+    void testReanchoringBoundsDrift() {
+        final int windowWidth = 64;
+        double[] signal = toneWithNoise(1_000_000, 500, 8000, 3);
+        SlidingGoertzel sliding = new SlidingGoertzel(4, windowWidth, true);
+        for (double x : signal) {
+            sliding.process(x);
+        }
+        // reference: the last window computed directly
+        ArrayList<Double> expected = new ArrayList<>();
+        Goertzel goertzel = new Goertzel(4, windowWidth, windowWidth, true, (Goertzel g) -> expected.add(g.getMagnitude()));
+        for (int i = signal.length - windowWidth; i < signal.length; i++) {
+            goertzel.process(signal[i]);
+        }
+        assertEquals(expected.getFirst(), sliding.getMagnitude(), 1e-10 * (1 + expected.getFirst()));
+    }
+}
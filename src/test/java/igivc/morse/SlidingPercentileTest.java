@@ -0,0 +1,73 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlidingPercentileTest {
+
+    private static double sortedPercentile(double[] signal, int end, int n, double p) {
+        double[] window = Arrays.copyOfRange(signal, end - n, end);
+        Arrays.sort(window);
+        return window[(int) Math.floor(p * (n - 1))];
+    }
+
+    @Test
+    public void testMatchesSortedWindow() {
+        final int n = 800;
+        final double[] percentiles = {0.0, 0.1, 0.5, 0.9, 1.0};
+        double[] signal = new double[5000];
+        Random rnd = new Random(42);
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = Math.abs(rnd.nextGaussian()) * (i % 700 < 350 ? 1.0 : 5.0);
+        }
+
+        for (double p : percentiles) {
+            SlidingPercentile sp = new SlidingPercentile(n, p);
+            for (int i = 0; i < signal.length; i++) {
+                sp.add(signal[i]);
+                if (i + 1 >= n) {
+                    assertEquals(sortedPercentile(signal, i + 1, n, p), sp.get(), 0.0, "p=" + p + ", i=" + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDuplicates() {
+        final int n = 10;
+        SlidingPercentile sp = new SlidingPercentile(n, 0.9);
+        double[] signal = new double[200];
+        Random rnd = new Random(7);
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = rnd.nextInt(3);
+            sp.add(signal[i]);
+            if (i + 1 >= n) {
+                assertEquals(sortedPercentile(signal, i + 1, n, 0.9), sp.get(), 0.0, "i=" + i);
+            }
+        }
+    }
+
+    @Test
+    public void testValueAtKeepsArrivalOrder() {
+        SlidingPercentile sp = new SlidingPercentile(3, 0.5);
+        assertFalse(sp.isFull());
+        assertThrows(IllegalStateException.class, sp::get);
+        for (int i = 1; i <= 5; i++) {
+            sp.add(i);
+        }
+        assertTrue(sp.isFull());
+        assertEquals(3, sp.valueAt(0), 0.0);
+        assertEquals(4, sp.valueAt(1), 0.0);
+        assertEquals(5, sp.valueAt(2), 0.0);
+        assertEquals(4, sp.get(), 0.0);
+
+        sp.clear();
+        assertEquals(0, sp.getSize());
+        sp.add(1);
+        assertEquals(1, sp.valueAt(0), 0.0);
+    }
+}
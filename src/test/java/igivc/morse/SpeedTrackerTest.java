@@ -0,0 +1,69 @@
+package igivc.morse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpeedTrackerTest {
+    private static final int sampleRate = 8000;
+    // PARIS: .--. .- .-. .. ...
+    private static final int[] paris = {1, 3, 3, 1, 1, 3, 1, 3, 1, 1, 1, 1, 1, 1};
+
+    private static int dotDuration(double wpm) {
+        return (int) Math.round(1.2 * sampleRate / wpm);
+    }
+
+    @Test
+    void testNotInitializedWithoutDashes() {
+        SpeedTracker tracker = new SpeedTracker(sampleRate);
+        for (int i = 0; i < 50; i++) {
+            tracker.accept(480);
+        }
+        assertFalse(tracker.isInitialized());
+        assertEquals(0, tracker.getWordsPerMinute());
+        assertEquals(0, tracker.getConfidence());
+    }
+
+    @Test
+    void testJitteredElements() {
+        SpeedTracker tracker = new SpeedTracker(sampleRate);
+        Random random = new Random(1);
+        final int dot = dotDuration(20);
+        for (int i = 0; i < 20; i++) {
+            for (int units : paris) {
+                tracker.accept((int) (units * dot * (1 + 0.15 * (random.nextDouble() - 0.5))));
+            }
+        }
+        assertTrue(tracker.isInitialized());
+        assertEquals(20, tracker.getWordsPerMinute(), 1);
+        assertTrue(tracker.getConfidence() > 0.7, "confidence " + tracker.getConfidence());
+    }
+
+    @Test
+    void testGlitchBeforeInitializationIsIgnored() {
+        SpeedTracker tracker = new SpeedTracker(sampleRate);
+        final int dot = dotDuration(25);
+        tracker.accept(20 * dot); // stuck key
+        for (int i = 0; i < 5; i++) {
+            for (int units : paris) {
+                tracker.accept(units * dot);
+            }
+        }
+        assertEquals(25, tracker.getWordsPerMinute(), 0.5);
+    }
+
+    @Test
+    void testFollowsSpeedDrift() {
+        SpeedTracker tracker = new SpeedTracker(sampleRate);
+        for (int word = 0; word <= 40; word++) {
+            final int dot = dotDuration(20 + word / 4.0); // 20 -> 30 WPM
+            for (int units : paris) {
+                tracker.accept(units * dot);
+            }
+        }
+        assertEquals(30, tracker.getWordsPerMinute(), 1);
+        assertTrue(tracker.getConfidence() > 0.5, "confidence " + tracker.getConfidence());
+    }
+}